@@ -0,0 +1,83 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.security.AllowedRoles;
+import com.foxminded.booking.security.RoleMaskSecurityMetadataSource;
+import com.foxminded.booking.security.RoleMaskVoter;
+import com.foxminded.booking.security.jwt.JwtUser;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.expression.method.ExpressionBasedPreInvocationAdvice;
+import org.springframework.security.access.prepost.PreInvocationAuthorizationAdviceVoter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * Access decision for a method open to admins and users, made the way {@code @PreAuthorize}
+ * with a SpEL expression decided it and with role masks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorizationBenchmark {
+    private static final String IS_AUTHENTICATED = "hasRole('" + ROLE_ADMIN + "') or hasRole('" + ROLE_USER + "')";
+
+    private Authentication authentication;
+    private MethodInvocation invocation;
+    private PreInvocationAuthorizationAdviceVoter expressionVoter;
+    private Collection<ConfigAttribute> expressionAttributes;
+    private RoleMaskVoter roleMaskVoter;
+    private Collection<ConfigAttribute> roleMaskAttributes;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        JwtUser user = new JwtUser(1l, "Lewis", "Scott", "lewis", "",
+                AuthorityUtils.createAuthorityList(ROLE_USER));
+        authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        Method method = Guarded.class.getMethod("get");
+        invocation = new SimpleMethodInvocation(new Guarded(), method);
+
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        ExpressionBasedPreInvocationAdvice advice = new ExpressionBasedPreInvocationAdvice();
+        advice.setExpressionHandler(handler);
+        expressionVoter = new PreInvocationAuthorizationAdviceVoter(advice);
+        expressionAttributes = Collections.singletonList(new ExpressionBasedAnnotationAttributeFactory(handler)
+                .createPreInvocationAttribute(null, null, IS_AUTHENTICATED));
+
+        roleMaskVoter = new RoleMaskVoter();
+        roleMaskAttributes = new RoleMaskSecurityMetadataSource().getAttributes(method, Guarded.class);
+    }
+
+    @Benchmark
+    public int expression() {
+        return expressionVoter.vote(authentication, invocation, expressionAttributes);
+    }
+
+    @Benchmark
+    public int roleMask() {
+        return roleMaskVoter.vote(authentication, invocation, roleMaskAttributes);
+    }
+
+    public static class Guarded {
+
+        @AllowedRoles(AUTHENTICATED)
+        public void get() {
+        }
+    }
+}
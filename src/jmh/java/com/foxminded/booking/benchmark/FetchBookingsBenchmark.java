@@ -0,0 +1,66 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.Application;
+import com.foxminded.booking.controller.BookingsController;
+import com.foxminded.booking.model.dto.BookingDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * {@code GET /api/v1/bookings} through the secured controller proxy, down to the in-memory H2
+ * database of the {@code h2} profile, without the HTTP layer in front of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchBookingsBenchmark {
+    @Param({"admin", "user"})
+    private String caller;
+
+    private ConfigurableApplicationContext context;
+    private BookingsController controller;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("h2")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        controller = context.getBean(BookingsController.class);
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(caller.equals("admin")
+                ? new UsernamePasswordAuthenticationToken("daniil", "", AuthorityUtils.createAuthorityList(ROLE_ADMIN))
+                : new UsernamePasswordAuthenticationToken("lewis", "", AuthorityUtils.createAuthorityList(ROLE_USER)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BookingDto>> fetchBookings() {
+        return controller.getBookings(Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BookingDto>> fetchBookingsPage() {
+        return controller.getBookings(Optional.empty(), Optional.empty(), Optional.of(100));
+    }
+}
@@ -0,0 +1,61 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.Application;
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.repository.GuideRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts per second of {@code saveAll} in one transaction on the H2 database of the {@code h2}
+ * profile, with JDBC batching switched off ({@code batchSize} 0) and at the configured size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+    private static final int ROWS = 1000;
+
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private GuideRepository repository;
+    private TransactionTemplate transaction;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("h2")
+                .properties("server.port=0", "logging.level.root=WARN",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize)
+                .run();
+        repository = context.getBean(GuideRepository.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Guide> insert() {
+        List<Guide> guides = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            guides.add(new Guide("guide" + i));
+        }
+        return transaction.execute(status -> repository.saveAll(guides));
+    }
+}
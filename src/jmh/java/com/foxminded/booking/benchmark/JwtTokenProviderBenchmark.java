@@ -0,0 +1,62 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.model.User;
+import com.foxminded.booking.security.jwt.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.impl.TextCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * Token handling done by {@code /auth} and by {@code JwtTokenFilter} on every request. Validation
+ * of an already seen token is answered from the verified token cache, {@link #verifySignature}
+ * shows what a cache miss costs. Tokens are signed with a random 256 bit key, the size HS256 is
+ * meant to be used with.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+    private byte[] key;
+    private JwtTokenProvider tokenProvider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        tokenProvider = new JwtTokenProvider(TextCodec.BASE64.encode(key));
+        user = new User(1l, "Lewis", "Scott", "lewis", "user", new Role(2l, ROLE_USER));
+        token = tokenProvider.generateToken(user, 0);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(user, 0);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return tokenProvider.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public Claims verifySignature() {
+        return Jwts.parser().setSigningKey(key).parseClaimsJws(token).getBody();
+    }
+}
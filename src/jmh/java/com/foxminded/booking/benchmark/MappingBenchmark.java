@@ -0,0 +1,75 @@
+package com.foxminded.booking.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.foxminded.booking.model.*;
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.TourDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * Entity to DTO mapping and JSON serialization of a bookings page, which is what every list
+ * endpoint spends its time on once the rows are loaded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private Tour tour;
+    private Booking booking;
+    private List<Booking> bookings;
+    private List<BookingDto> bookingDtos;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        Role role = new Role(2l, ROLE_USER);
+        bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Tour tour = new Tour((long) i, 3l + i % 3, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+            User user = new User((long) i, "Lewis", "Scott", "lewis" + i, "user", role);
+            Guide guide = new Guide((long) i % 3, "Chris");
+            bookings.add(new Booking((long) i, tour, user, guide));
+        }
+        booking = bookings.get(0);
+        tour = booking.getTour();
+        bookingDtos = bookings.stream().map(Booking::toBookingDto).collect(Collectors.toList());
+        ObjectMapper mapper = new ObjectMapper();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, BookingDto.class));
+    }
+
+    @Benchmark
+    public TourDto tourToTourDto() {
+        return tour.toTourDto();
+    }
+
+    @Benchmark
+    public BookingDto bookingToBookingDto() {
+        return booking.toBookingDto();
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingsToBookingDtos() {
+        return bookings.stream().map(Booking::toBookingDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeBookingDtos() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookingDtos);
+    }
+}
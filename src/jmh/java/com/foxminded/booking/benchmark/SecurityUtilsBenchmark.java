@@ -0,0 +1,46 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.utils.SecurityUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * Role checks the controllers run on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityUtilsBenchmark {
+
+    @Setup
+    public void setUp() {
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "lewis", "", AuthorityUtils.createAuthorityList(ROLE_USER)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean userHasRole() {
+        return SecurityUtils.userHasRole(ROLE_ADMIN);
+    }
+
+    @Benchmark
+    public String currentUserName() {
+        return SecurityUtils.currentUserName();
+    }
+}
@@ -0,0 +1,88 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.Application;
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.TourFilterDto;
+import com.foxminded.booking.service.TourService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of {@code GET /api/v1/tours/search} over a million tours written by the data generator
+ * into the H2 database of the {@code h2} profile, for filter and sort combinations served by
+ * different tours indexes, and for the deepest page the endpoint allows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TourSearchBenchmark {
+    private static final int TOURS = 1000000;
+    private static final int PAGE_SIZE = 20;
+    private static final Sort BY_ID = Sort.by("id");
+
+    private ConfigurableApplicationContext context;
+    private TourService tourService;
+    private TourFilterDto byDifficultyAndPrice;
+    private TourFilterDto byStart;
+    private TourFilterDto byFinish;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("h2", "generate")
+                .properties("server.port=0", "logging.level.root=WARN",
+                        "generator.tours=" + TOURS, "generator.bookings=0")
+                .run();
+        tourService = context.getBean(TourService.class);
+
+        byDifficultyAndPrice = new TourFilterDto();
+        byDifficultyAndPrice.setDifficulty("hard");
+        byDifficultyAndPrice.setMinPrice(100l);
+        byDifficultyAndPrice.setMaxPrice(200l);
+        byStart = new TourFilterDto();
+        byStart.setStartFrom(LocalDate.of(2021, 6, 1));
+        byStart.setStartTo(LocalDate.of(2021, 6, 30));
+        byFinish = new TourFilterDto();
+        byFinish.setFinishFrom(LocalDate.of(2022, 3, 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<Tour> byDifficultyAndPrice() {
+        return tourService.search(byDifficultyAndPrice, PageRequest.of(0, PAGE_SIZE, Sort.by("price").and(BY_ID)));
+    }
+
+    @Benchmark
+    public Slice<Tour> byStart() {
+        return tourService.search(byStart, PageRequest.of(0, PAGE_SIZE, Sort.by("start").and(BY_ID)));
+    }
+
+    @Benchmark
+    public Slice<Tour> byFinish() {
+        return tourService.search(byFinish, PageRequest.of(0, PAGE_SIZE, BY_ID));
+    }
+
+    @Benchmark
+    public Slice<Tour> sortedByFinish() {
+        return tourService.search(new TourFilterDto(), PageRequest.of(0, PAGE_SIZE, Sort.by("finish").and(BY_ID)));
+    }
+
+    @Benchmark
+    public Slice<Tour> deepestPage() {
+        return tourService.search(new TourFilterDto(), PageRequest.of(10000 / PAGE_SIZE, PAGE_SIZE, BY_ID));
+    }
+}
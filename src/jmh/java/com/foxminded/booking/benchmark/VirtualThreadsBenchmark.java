@@ -0,0 +1,111 @@
+package com.foxminded.booking.benchmark;
+
+import com.foxminded.booking.Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/v1/tours} and {@code POST /api/v1/bookings} over HTTP from 200 concurrent
+ * clients, with requests on Tomcat's worker pool and on virtual threads. The database is the H2
+ * one of the {@code h2} profile seeded by the data generator. Virtual threads need JDK 21, on an
+ * older JDK the {@code true} run fails at setup instead of measuring the worker pool a second
+ * time; pass {@code -p virtualThreads=false} there.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(200)
+@State(Scope.Benchmark)
+public class VirtualThreadsBenchmark {
+    private static final String TOUR_JSON =
+            "{\"id\":1,\"price\":3,\"difficulty\":\"easy\",\"start\":\"2021-04-01\",\"finish\":\"2021-04-02\"}";
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        if (virtualThreads && !virtualThreadsAvailable())
+            throw new IllegalStateException("virtual threads need JDK 21 or later, this is JDK " +
+                    System.getProperty("java.version"));
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("h2", "generate")
+                .properties("server.port=0", "logging.level.root=WARN",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.hikari.maximum-pool-size=50")
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        authorization = "Bearer " + send("POST", "/auth", null,
+                "{\"username\":\"lewis\",\"password\":\"user\"}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getTours() {
+        return send("GET", "/api/v1/tours", authorization, null);
+    }
+
+    @Benchmark
+    public String createBooking() {
+        return send("POST", "/api/v1/bookings", authorization, TOUR_JSON);
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private String send(String method, String path, String authorization, String body) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            if (authorization != null)
+                connection.setRequestProperty("Authorization", authorization);
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            if (connection.getResponseCode() >= 400)
+                throw new IllegalStateException(method + " " + path + " answered " + connection.getResponseCode());
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    content.write(buffer, 0, read);
+                }
+                return new String(content.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
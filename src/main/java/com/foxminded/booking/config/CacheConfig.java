@@ -0,0 +1,82 @@
+package com.foxminded.booking.config;
+
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.model.Tour;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Heap regions for the Hibernate second-level cache. Roles, guides and tours are cached with a
+ * read-write strategy, so Hibernate replaces entries as soon as a write through JPA commits, and
+ * cacheable queries are invalidated whenever one of their tables changes.
+ * <p>
+ * Every application context gets a cache manager of its own, otherwise contexts running side by
+ * side, as in tests, would share entries loaded from different databases. Each region publishes
+ * {@code cache.gets}, {@code cache.puts} and {@code cache.evictions} tagged with its name, the
+ * region names do not clash with the other caches measured.
+ */
+@Configuration
+public class CacheConfig {
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private final CacheManager cacheManager;
+
+    public CacheConfig() {
+        Map<String, Long> regions = new LinkedHashMap<>();
+        regions.put(Role.CACHE_REGION, 100L);
+        regions.put(Guide.CACHE_REGION, 20000L);
+        regions.put(Tour.CACHE_REGION, 50000L);
+        regions.put(QUERY_RESULTS_REGION, 1000L);
+        regions.put(UPDATE_TIMESTAMPS_REGION, 1000L);
+
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (Map.Entry<String, Long> region : regions.entrySet()) {
+            configuration = configuration.withCache(region.getKey(), CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(region.getValue())));
+        }
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        cacheManager = provider.getCacheManager(URI.create("urn:booking:second-level:" + UUID.randomUUID()), configuration.build());
+        for (String region : regions.keySet()) {
+            cacheManager.enableStatistics(region, true);
+        }
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics() {
+        return registry -> {
+            for (String region : cacheManager.getCacheNames()) {
+                // same tag keys as the user details cache meters, Prometheus rejects differing sets
+                JCacheMetrics.monitor(registry, cacheManager.getCache(region), Tags.empty());
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() {
+        cacheManager.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.foxminded.booking.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Counts the SQL statements Hibernate prepares and the entities it loads on the current thread
+ * between {@link #start()} and {@link #stop()}. Threads that never started counting, such as
+ * background writers, only pay for a thread local lookup.
+ */
+public class HibernateRequestCounter extends EmptyInterceptor implements StatementInspector {
+    private static final ThreadLocal<Counts> counts = new ThreadLocal<>();
+
+    public void start() {
+        counts.set(new Counts());
+    }
+
+    /**
+     * Returns what was counted since {@link #start()} or {@code null} when counting was not started.
+     */
+    public Counts stop() {
+        Counts current = counts.get();
+        counts.remove();
+        return current;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts current = counts.get();
+        if (current != null)
+            current.statements++;
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        Counts current = counts.get();
+        if (current != null)
+            current.entityLoads++;
+        return false;
+    }
+
+    public static final class Counts {
+        private long statements;
+        private long entityLoads;
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.foxminded.booking.config;
+
+import com.foxminded.booking.service.UserDetailsCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds what the actuator does not measure out of the box: a {@code handler} tag naming the
+ * controller method on {@code http.server.requests}, the number of statements and entity loads
+ * each request caused, see {@link RequestMetricsInterceptor}, and hit and miss counters of the
+ * user details cache. Beans the meter registry or the JPA setup depend on are static, so they do
+ * not pull this configuration into their creation.
+ * <p>
+ * Latency percentiles, Hikari pool and Hibernate session factory metrics come from the actuator
+ * itself and are configured under {@code management.metrics} in {@code application.yml}.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    static final String HANDLER_TAG = "handler";
+
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+
+    public MetricsConfig(RequestMetricsInterceptor requestMetricsInterceptor) {
+        this.requestMetricsInterceptor = requestMetricsInterceptor;
+    }
+
+    @Bean
+    public static WebMvcTagsContributor handlerTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+                return Tags.of(HANDLER_TAG, handlerName(handler));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.of(HANDLER_TAG, handlerName(handler));
+            }
+        };
+    }
+
+    @Bean
+    public static HibernateRequestCounter hibernateRequestCounter() {
+        return new HibernateRequestCounter();
+    }
+
+    @Bean
+    public static HibernatePropertiesCustomizer requestCounterCustomizer(HibernateRequestCounter requestCounter) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, requestCounter);
+            properties.put(AvailableSettings.INTERCEPTOR, requestCounter);
+        };
+    }
+
+    @Bean
+    public static MeterBinder userDetailsCacheMetrics(UserDetailsCache cache) {
+        return meterRegistry -> {
+            Tags tags = Tags.of("cache", "userDetails");
+            FunctionCounter.builder("cache.gets", cache, it -> it.stats().getHits())
+                    .tags(tags).tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.gets", cache, it -> it.stats().getMisses())
+                    .tags(tags).tag("result", "miss")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.evictions", cache, it -> it.stats().getEvictions())
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder("cache.size", cache, it -> it.stats().getSize())
+                    .tags(tags)
+                    .register(meterRegistry);
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(requestMetricsInterceptor);
+    }
+
+    static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return "none";
+    }
+}
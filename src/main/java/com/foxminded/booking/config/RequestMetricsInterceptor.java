@@ -0,0 +1,87 @@
+package com.foxminded.booking.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many statements and entity loads each request caused, tagged with its handler.
+ * <p>
+ * Only the thread that entered the handler is counted, work an asynchronous response does
+ * later on another thread is not attributed to the request, and the asynchronous re-dispatch
+ * that writes such a response is not recorded a second time. The registry is looked up lazily,
+ * since the registry itself is built from beans the JPA setup depends on. The summaries are
+ * registered once per handler and reused by later requests.
+ */
+@Component
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+    static final String STATEMENTS = "hibernate.request.statements";
+    static final String ENTITY_LOADS = "hibernate.request.entity.loads";
+
+    private final HibernateRequestCounter requestCounter;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Map<String, Summaries> summaries = new ConcurrentHashMap<>();
+
+    public RequestMetricsInterceptor(HibernateRequestCounter requestCounter, ObjectProvider<MeterRegistry> registry) {
+        this.requestCounter = requestCounter;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC)
+            requestCounter.start();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        record(handler, requestCounter.stop());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(handler, requestCounter.stop());
+    }
+
+    private void record(Object handler, HibernateRequestCounter.Counts counts) {
+        if (counts == null)
+            return;
+        String name = MetricsConfig.handlerName(handler);
+        Summaries handlerSummaries = summaries.get(name);
+        if (handlerSummaries == null) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            if (meterRegistry == null)
+                return;
+            handlerSummaries = summaries.computeIfAbsent(name,
+                    key -> new Summaries(meterRegistry, Tags.of(MetricsConfig.HANDLER_TAG, key)));
+        }
+        handlerSummaries.statements.record(counts.getStatements());
+        handlerSummaries.entityLoads.record(counts.getEntityLoads());
+    }
+
+    private static final class Summaries {
+        private final DistributionSummary statements;
+        private final DistributionSummary entityLoads;
+
+        private Summaries(MeterRegistry meterRegistry, Tags tags) {
+            statements = DistributionSummary.builder(STATEMENTS)
+                    .description("SQL statements prepared while handling a request")
+                    .tags(tags)
+                    .register(meterRegistry);
+            entityLoads = DistributionSummary.builder(ENTITY_LOADS)
+                    .description("Entities loaded while handling a request")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.foxminded.booking.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every servlet request, and with it the whole blocking service and repository call chain,
+ * on its own virtual thread instead of a thread from Tomcat's bounded worker pool. Asynchronous
+ * MVC responses such as the bookings export use virtual threads as well.
+ * <p>
+ * Enabled with {@code spring.threads.virtual.enabled=true}. Virtual threads only exist on JDK 21
+ * and later, so the executor is looked up reflectively; on older JDKs the setting is ignored with
+ * a warning and the default pool stays in place.
+ * <p>
+ * This stack does not let virtual threads unmount while they wait: PgJDBC 42.2 and Tomcat 9's NIO
+ * connector block inside {@code synchronized} code, and guides are assigned under the
+ * {@link com.foxminded.booking.service.GuideAssignmentService} monitor. Up to JDK 23 that pins the
+ * virtual thread to its carrier, so throughput is capped by the number of carrier threads, which
+ * defaults to the number of cores, rather than by the worker or connection pool.
+ */
+@Configuration
+@Conditional(VirtualThreadsConfig.OnVirtualThreadsEnabled.class)
+public class VirtualThreadsConfig implements WebMvcConfigurer {
+    static final String ENABLED_PROPERTY = "spring.threads.virtual.enabled";
+
+    private final ExecutorService executor;
+
+    public VirtualThreadsConfig() {
+        this(newVirtualThreadPerTaskExecutor());
+    }
+
+    VirtualThreadsConfig(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(executor));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads are not available on this JDK", e);
+        }
+    }
+
+    static class OnVirtualThreadsEnabled extends SpringBootCondition {
+        private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (!context.getEnvironment().getProperty(ENABLED_PROPERTY, Boolean.class, false))
+                return ConditionOutcome.noMatch(ENABLED_PROPERTY + " is not set");
+            if (!isAvailable()) {
+                log.warn("{} is set but JDK {} has no virtual threads, keeping the default worker pool",
+                        ENABLED_PROPERTY, System.getProperty("java.version"));
+                return ConditionOutcome.noMatch("virtual threads are not available on this JDK");
+            }
+            return ConditionOutcome.match("virtual threads are enabled");
+        }
+    }
+}
@@ -6,7 +6,8 @@ import com.foxminded.booking.model.dto.RegistrationDto;
 import com.foxminded.booking.model.dto.UserDto;
 import com.foxminded.booking.model.exception.NotFoundException;
 import com.foxminded.booking.security.jwt.JwtTokenProvider;
-import com.foxminded.booking.service.RoleService;
+import com.foxminded.booking.service.RoleRegistry;
+import com.foxminded.booking.service.TokenVersionService;
 import com.foxminded.booking.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -21,17 +22,22 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 import java.util.Optional;
 
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
 @RestController
 @Tag(name = "Authentication Controller", description = "Working with user authentication")
 public class AuthenticationController {
     private final UserService userService;
-    private final RoleService roleService;
+    private final RoleRegistry roleRegistry;
     private final JwtTokenProvider tokenProvider;
+    private final TokenVersionService tokenVersionService;
 
-    public AuthenticationController(UserService userService, RoleService roleService, JwtTokenProvider tokenProvider) {
+    public AuthenticationController(UserService userService, RoleRegistry roleRegistry, JwtTokenProvider tokenProvider,
+                                    TokenVersionService tokenVersionService) {
         this.userService = userService;
-        this.roleService = roleService;
+        this.roleRegistry = roleRegistry;
         this.tokenProvider = tokenProvider;
+        this.tokenVersionService = tokenVersionService;
     }
 
     @PostMapping("/register")
@@ -46,7 +52,7 @@ public class AuthenticationController {
                 dto.getLastName(),
                 dto.getUsername(),
                 dto.getPassword(),
-                roleService.findByName("ROLE_USER")
+                roleRegistry.findByName(ROLE_USER)
                         .orElseThrow(() -> new NotFoundException("role not found", HttpStatus.NO_CONTENT))
         );
         return new ResponseEntity<>(userService.save(user).toUserDto(), HttpStatus.OK);
@@ -61,7 +67,10 @@ public class AuthenticationController {
     ) @org.springframework.web.bind.annotation.RequestBody @Valid AuthorizationDto dto) {
         Optional<User> user = userService.findByUsername(dto.getUsername());
         if (user.isPresent() && user.get().getPassword().equals(dto.getPassword()))
-            return new ResponseEntity<>(tokenProvider.generateToken(dto.getUsername()), HttpStatus.OK);
+            return new ResponseEntity<>(
+                    tokenProvider.generateToken(user.get(), tokenVersionService.currentVersion(user.get().getId())),
+                    HttpStatus.OK
+            );
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
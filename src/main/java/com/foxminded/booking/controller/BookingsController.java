@@ -1,61 +1,192 @@
 package com.foxminded.booking.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.foxminded.booking.model.Booking;
 import com.foxminded.booking.model.Guide;
 import com.foxminded.booking.model.Tour;
-import com.foxminded.booking.model.User;
+import com.foxminded.booking.model.dto.BookingCommandDto;
 import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import com.foxminded.booking.model.dto.BookingResultDto;
+import com.foxminded.booking.model.dto.BookingTicketDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
 import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.security.AllowedRoles;
+import com.foxminded.booking.security.jwt.JwtUser;
+import com.foxminded.booking.service.BookingBatchService;
+import com.foxminded.booking.service.BookingIntakeService;
 import com.foxminded.booking.service.BookingService;
-import com.foxminded.booking.service.GuideService;
+import com.foxminded.booking.service.GuideAssignmentService;
+import com.foxminded.booking.service.TourCapacityService;
 import com.foxminded.booking.service.UserService;
 import com.foxminded.booking.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.foxminded.booking.security.RoleMask.ADMIN;
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
+import static com.foxminded.booking.security.RoleMask.USER;
 import static com.foxminded.booking.security.SecurityConstants.*;
 
 @RestController
 @RequestMapping("/api/v1/bookings")
 @Tag(name = "Bookings Controller", description = "Working with bookings")
 public class BookingsController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final BookingService bookingService;
     private final UserService userService;
-    private final GuideService guideService;
+    private final GuideAssignmentService guideAssignmentService;
+    private final BookingBatchService bookingBatchService;
+    private final TourCapacityService tourCapacityService;
+    private final BookingIntakeService bookingIntakeService;
+    private final ObjectMapper mapper;
+    private final long exportTimeout;
 
-    public BookingsController(BookingService bookingService, UserService userService, GuideService guideService) {
+    public BookingsController(BookingService bookingService, UserService userService, GuideAssignmentService guideAssignmentService,
+                              BookingBatchService bookingBatchService, TourCapacityService tourCapacityService,
+                              BookingIntakeService bookingIntakeService, ObjectMapper mapper,
+                              @Value("${bookings.export.timeout-seconds:3600}") long exportTimeoutSeconds) {
         this.bookingService = bookingService;
         this.userService = userService;
-        this.guideService = guideService;
+        this.guideAssignmentService = guideAssignmentService;
+        this.bookingBatchService = bookingBatchService;
+        this.tourCapacityService = tourCapacityService;
+        this.bookingIntakeService = bookingIntakeService;
+        this.mapper = mapper;
+        this.exportTimeout = TimeUnit.SECONDS.toMillis(exportTimeoutSeconds);
     }
 
-    @PreAuthorize(isAuthenticated)
+    @AllowedRoles(AUTHENTICATED)
     @GetMapping
     @Operation(summary = "Get all bookings", security = @SecurityRequirement(name = "bearerAuth"))
-    public List<BookingDto> getBookings(@Parameter(description = "guide id")
-                                        @RequestParam(name = "guideId") Optional<Long> guideId) {
-        Stream<Booking> bookings = fetchBookings(guideId);
+    public ResponseEntity<List<BookingDto>> getBookings(@Parameter(description = "guide id")
+                                                        @RequestParam(name = "guideId") Optional<Long> guideId,
+                                                        @Parameter(description = "cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page")
+                                                        @RequestParam(name = "after") Optional<Long> after,
+                                                        @Parameter(description = "page size, enables cursor pagination, every booking is returned when omitted")
+                                                        @RequestParam(name = "limit") Optional<Integer> limit) {
+        if (!limit.isPresent()) {
+            List<BookingDto> bookings = fetchBookings(guideId)
+                    .map(Booking::toBookingDto)
+                    .collect(Collectors.toList());
+            return new ResponseEntity<>(bookings, HttpStatus.OK);
+        }
+        int size = limit.get();
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new HttpStatusException("limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        return page(fetchBookingsPage(guideId, after.orElse(0L), size + 1), size);
+    }
+
+    @AllowedRoles(AUTHENTICATED)
+    @GetMapping("/search")
+    @Operation(summary = "Search bookings, users only find their own", security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<BookingDto>> searchBookings(@Parameter(description = "tour id")
+                                                           @RequestParam(name = "tourId") Optional<Long> tourId,
+                                                           @Parameter(description = "user id, only taken into account for admins")
+                                                           @RequestParam(name = "userId") Optional<Long> userId,
+                                                           @Parameter(description = "guide id")
+                                                           @RequestParam(name = "guideId") Optional<Long> guideId,
+                                                           @Parameter(description = "tour difficulty")
+                                                           @RequestParam(name = "difficulty") Optional<String> difficulty,
+                                                           @Parameter(description = "earliest tour start date, inclusive")
+                                                           @RequestParam(name = "startFrom") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> startFrom,
+                                                           @Parameter(description = "latest tour start date, inclusive")
+                                                           @RequestParam(name = "startTo") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> startTo,
+                                                           @Parameter(description = "cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page")
+                                                           @RequestParam(name = "after") Optional<Long> after,
+                                                           @Parameter(description = "page size")
+                                                           @RequestParam(name = "limit") Optional<Integer> limit) {
+        int size = limit.orElse(DEFAULT_PAGE_SIZE);
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new HttpStatusException("limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
 
-        return bookings
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setTourId(tourId.orElse(null));
+        filter.setUserId(SecurityUtils.userHasRole(ROLE_ADMIN) ? userId.orElse(null) : currentUserId());
+        filter.setGuideId(guideId.orElse(null));
+        filter.setDifficulty(difficulty.orElse(null));
+        filter.setStartFrom(startFrom.orElse(null));
+        filter.setStartTo(startTo.orElse(null));
+        return page(bookingService.search(filter, after.orElse(0L), size + 1), size);
+    }
+
+    /**
+     * Answers with the first {@code size} bookings of a page read one row longer, which tells
+     * whether a next page exists.
+     */
+    private static ResponseEntity<List<BookingDto>> page(List<Booking> rows, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(rows.get(size - 1).getId()));
+        }
+        List<BookingDto> bookings = rows.stream()
                 .map(Booking::toBookingDto)
                 .collect(Collectors.toList());
+        return new ResponseEntity<>(bookings, headers, HttpStatus.OK);
+    }
+
+    @AllowedRoles(ADMIN)
+    @GetMapping(value = "/export", produces = NDJSON)
+    @Operation(summary = "Export all bookings as newline delimited JSON", security = @SecurityRequirement(name = "bearerAuth"))
+    public WebAsyncTask<Void> exportBookings(HttpServletResponse response) {
+        ObjectWriter writer = mapper.writerFor(BookingDto.class);
+        response.setContentType(NDJSON);
+        // the export may run for minutes, other asynchronous requests keep the default timeout
+        return new WebAsyncTask<>(exportTimeout, () -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(response.getOutputStream())) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                AtomicBoolean first = new AtomicBoolean(true);
+                bookingService.exportAll(booking -> {
+                    try {
+                        writer.writeValue(generator, booking.toBookingDto());
+                        generator.writeRaw('\n');
+                        // later rows go out whenever the response buffer fills up
+                        if (first.getAndSet(false))
+                            generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return null;
+        });
     }
 
     private Stream<Booking> fetchBookings(Optional<Long> guideId) {
@@ -67,18 +198,42 @@ public class BookingsController {
                 bookings = bookingService.findAll().stream();
             }
         } else {
-            User user = userService
-                    .findByUsername(SecurityUtils.currentUserName())
-                    .orElseThrow(() -> new NotFoundException("user not found", HttpStatus.NOT_FOUND));
-            bookings = bookingService.findByUserId(user.getId()).stream();
             if (guideId.isPresent()) {
-                bookings = bookings.filter(it -> it.getGuide() != null && guideId.get().equals(it.getGuide().getId()));
+                bookings = bookingService.findByUserIdAndGuideId(currentUserId(), guideId.get()).stream();
+            } else {
+                bookings = bookingService.findByUserId(currentUserId()).stream();
             }
         }
         return bookings;
     }
 
-    @PreAuthorize(isAuthenticated)
+    private List<Booking> fetchBookingsPage(Optional<Long> guideId, Long afterId, int limit) {
+        if (SecurityUtils.userHasRole(ROLE_ADMIN)) {
+            if (guideId.isPresent())
+                return bookingService.findByGuideIdAfterId(guideId.get(), afterId, limit);
+            return bookingService.findAfterId(afterId, limit);
+        }
+        Long userId = currentUserId();
+        if (guideId.isPresent())
+            return bookingService.findByUserIdAndGuideIdAfterId(userId, guideId.get(), afterId, limit);
+        return bookingService.findByUserIdAfterId(userId, afterId, limit);
+    }
+
+    /**
+     * Takes the id from the {@link JwtUser} principal the token filter resolved, other principals
+     * are looked up by name.
+     */
+    private Long currentUserId() {
+        Long id = SecurityUtils.currentUserId();
+        if (id != null)
+            return id;
+        return userService
+                .findByUsername(SecurityUtils.currentUserName())
+                .orElseThrow(() -> new NotFoundException("user not found", HttpStatus.NOT_FOUND))
+                .getId();
+    }
+
+    @AllowedRoles(AUTHENTICATED)
     @GetMapping("/{id}")
     @Operation(summary = "Get booking by id", security = @SecurityRequirement(name = "bearerAuth"))
     public BookingDto getBookingById(@Parameter(description = "guide id", required = true)
@@ -89,29 +244,78 @@ public class BookingsController {
                 .toBookingDto();
     }
 
-    @PreAuthorize(isUser)
+    @AllowedRoles(USER)
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    @Operation(summary = "Create booking", security = @SecurityRequirement(name = "bearerAuth"))
-    public BookingDto createBooking(@RequestBody(
+    @Operation(summary = "Create booking", security = @SecurityRequirement(name = "bearerAuth"), responses = {
+            @ApiResponse(responseCode = "201", description = "Booking created",
+                    content = @Content(schema = @Schema(implementation = BookingDto.class))),
+            @ApiResponse(responseCode = "202", description = "Booking queued, poll the returned ticket",
+                    content = @Content(schema = @Schema(implementation = BookingTicketDto.class)))
+    })
+    public ResponseEntity<?> createBooking(@RequestBody(
             description = "Tour for booking",
             required = true,
             content = @Content(schema = @Schema(implementation = Tour.class))
     ) @org.springframework.web.bind.annotation.RequestBody @Valid Tour tour) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = userService
-                .findByUsername(authentication.getName())
-                .orElseThrow(() -> new NotFoundException("user not found", HttpStatus.NOT_FOUND));
-        List<Guide> guides = guideService.findAll();
-        Random random = new Random();
-        Booking booking = new Booking();
-        booking.setTour(tour);
-        booking.setUser(user);
-        booking.setGuide(guides.get(random.nextInt(guides.size())));
-        return bookingService.save(booking).toBookingDto();
-    }
-
-    @PreAuthorize(isAdmin)
+        if (bookingIntakeService.isEnabled()) {
+            if (tour.getId() == null)
+                throw new HttpStatusException("tour id is required", HttpStatus.BAD_REQUEST);
+            BookingTicketDto ticket = bookingIntakeService.submit(new BookingCommandDto(tour.getId(), currentUserId()));
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create("/api/v1/bookings/tickets/" + ticket.getId()))
+                    .body(ticket);
+        }
+        Long userId = currentUserId();
+        tourCapacityService.reserve(tour.getId());
+        Guide guide = null;
+        try {
+            guide = guideAssignmentService.assign();
+            Booking booking = new Booking();
+            booking.setTour(tour);
+            booking.setGuide(guide);
+            BookingDto saved = bookingService.saveDto(booking, userId);
+            tourCapacityService.confirm(tour.getId());
+            return new ResponseEntity<>(saved, HttpStatus.CREATED);
+        } catch (RuntimeException e) {
+            tourCapacityService.cancel(tour.getId());
+            if (guide != null)
+                guideAssignmentService.release(guide.getId());
+            throw e;
+        }
+    }
+
+    @AllowedRoles(AUTHENTICATED)
+    @GetMapping("/tickets/{id}")
+    @Operation(summary = "Get status of a queued booking", security = @SecurityRequirement(name = "bearerAuth"))
+    public BookingTicketDto getTicket(@Parameter(description = "ticket id", required = true)
+                                      @PathVariable("id") String id) {
+        Long userId = SecurityUtils.userHasRole(ROLE_ADMIN) ? null : currentUserId();
+        return bookingIntakeService
+                .findTicket(id, userId)
+                .orElseThrow(() -> new NotFoundException("ticket not found", HttpStatus.NOT_FOUND));
+    }
+
+    @AllowedRoles(AUTHENTICATED)
+    @PostMapping("/batch")
+    @Operation(summary = "Create bookings in bulk", security = @SecurityRequirement(name = "bearerAuth"))
+    public List<BookingResultDto> createBookings(@RequestBody(
+            description = "Bookings to create, user ids are only taken into account for admins",
+            required = true,
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = BookingCommandDto.class)))
+    ) @org.springframework.web.bind.annotation.RequestBody List<BookingCommandDto> commands) {
+        if (commands.isEmpty() || commands.size() > MAX_BATCH_SIZE)
+            throw new HttpStatusException("batch must contain between 1 and " + MAX_BATCH_SIZE + " bookings", HttpStatus.BAD_REQUEST);
+        if (!SecurityUtils.userHasRole(ROLE_ADMIN)) {
+            Long userId = currentUserId();
+            commands = commands.stream()
+                    .map(command -> new BookingCommandDto(command.getTourId(), userId))
+                    .collect(Collectors.toList());
+        }
+        return bookingBatchService.createAll(commands);
+    }
+
+    @AllowedRoles(ADMIN)
     @PutMapping("/{id}")
     @Operation(summary = "Edit booking by id", security = @SecurityRequirement(name = "bearerAuth"))
     public BookingDto editBooking(@Parameter(description = "guide id", required = true)
@@ -123,20 +327,56 @@ public class BookingsController {
         return bookingService
                 .findById(id)
                 .map(booking -> {
+                    Long previousGuideId = guideId(booking.getGuide());
+                    Long previousTourId = tourId(booking.getTour());
+                    Long tourId = tourId(actual.getTour());
+                    boolean tourChanged = !Objects.equals(previousTourId, tourId);
+                    if (tourChanged)
+                        tourCapacityService.reserve(tourId);
                     booking.setTour(actual.getTour());
                     booking.setUser(actual.getUser());
                     booking.setGuide(actual.getGuide());
-                    return bookingService.save(booking);
+                    Booking saved;
+                    try {
+                        saved = bookingService.update(booking, previousTourId);
+                    } catch (RuntimeException e) {
+                        if (tourChanged)
+                            tourCapacityService.cancel(tourId);
+                        throw e;
+                    }
+                    if (tourChanged) {
+                        tourCapacityService.confirm(tourId);
+                        tourCapacityService.release(previousTourId);
+                    }
+                    Long guideId = guideId(saved.getGuide());
+                    if (!Objects.equals(previousGuideId, guideId)) {
+                        guideAssignmentService.release(previousGuideId);
+                        guideAssignmentService.acquire(guideId);
+                    }
+                    return saved;
                 })
                 .orElseThrow(() -> new NotFoundException("booking not found", HttpStatus.NOT_FOUND))
                 .toBookingDto();
     }
 
-    @PreAuthorize(isAuthenticated)
+    @AllowedRoles(AUTHENTICATED)
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete booking by id", security = @SecurityRequirement(name = "bearerAuth"))
     public void deleteBooking(@Parameter(description = "guide id", required = true)
                               @PathVariable("id") long id) {
+        Optional<Booking> booking = bookingService.findById(id);
         bookingService.deleteById(id);
+        booking.ifPresent(deleted -> {
+            guideAssignmentService.release(guideId(deleted.getGuide()));
+            tourCapacityService.release(tourId(deleted.getTour()));
+        });
+    }
+
+    private static Long guideId(Guide guide) {
+        return guide != null ? guide.getId() : null;
+    }
+
+    private static Long tourId(Tour tour) {
+        return tour != null ? tour.getId() : null;
     }
 }
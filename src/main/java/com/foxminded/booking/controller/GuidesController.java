@@ -3,6 +3,8 @@ package com.foxminded.booking.controller;
 import com.foxminded.booking.model.Guide;
 import com.foxminded.booking.model.dto.GuideDto;
 import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.security.AllowedRoles;
+import com.foxminded.booking.service.GuideAssignmentService;
 import com.foxminded.booking.service.GuideService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,24 +14,25 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static com.foxminded.booking.security.SecurityConstants.isAdmin;
+import static com.foxminded.booking.security.RoleMask.ADMIN;
 
 @RestController
-@PreAuthorize(isAdmin)
+@AllowedRoles(ADMIN)
 @RequestMapping("/api/v1/guides")
 @Tag(name = "Guides Controller", description = "Working with guides")
 public class GuidesController {
     private final GuideService guideService;
+    private final GuideAssignmentService guideAssignmentService;
 
-    public GuidesController(GuideService guideService) {
+    public GuidesController(GuideService guideService, GuideAssignmentService guideAssignmentService) {
         this.guideService = guideService;
+        this.guideAssignmentService = guideAssignmentService;
     }
 
     @GetMapping
@@ -60,7 +63,9 @@ public class GuidesController {
             required = true,
             content = @Content(schema = @Schema(implementation = Guide.class))
     ) @org.springframework.web.bind.annotation.RequestBody @Valid Guide guide) {
-        return guideService.save(guide).toGuideDto();
+        Guide saved = guideService.save(guide);
+        guideAssignmentService.register(saved);
+        return saved.toGuideDto();
     }
 
     @PutMapping("/{id}")
@@ -76,7 +81,9 @@ public class GuidesController {
                 .map(guide -> {
                     guide.setName(actual.getName());
                     guide.setBookings(actual.getBookings());
-                    return guideService.save(guide);
+                    Guide saved = guideService.save(guide);
+                    guideAssignmentService.register(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new NotFoundException("guide not found", HttpStatus.NOT_FOUND))
                 .toGuideDto();
@@ -87,5 +94,6 @@ public class GuidesController {
     public void deleteGuide(@Parameter(description = "guide id", required = true)
                             @PathVariable("id") long id) {
         guideService.deleteById(id);
+        guideAssignmentService.unregister(id);
     }
 }
@@ -0,0 +1,118 @@
+package com.foxminded.booking.controller;
+
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
+import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.repository.ReactiveReadRepository;
+import com.foxminded.booking.security.AllowedRoles;
+import com.foxminded.booking.service.UserService;
+import com.foxminded.booking.utils.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.foxminded.booking.controller.BookingsController.NEXT_CURSOR_HEADER;
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+
+/**
+ * Read endpoints served from {@link ReactiveReadRepository}, so no servlet thread waits on the
+ * database. Plain JSON responses are collected into an array, so bookings are answered a page at
+ * a time with the same {@code after} and {@code limit} cursor as {@code /api/v1/bookings}. Unlike
+ * there, a missing {@code limit} means a page of 20 rather than every booking, since the whole
+ * table would have to be collected into one array. {@code application/stream+json} responses
+ * are written one element at a time and only request more rows once they are out, so they can
+ * cover every booking.
+ */
+@RestController
+@RequestMapping("/api/v1/reactive")
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+@Tag(name = "Reactive Read Controller", description = "Reading tours and bookings without blocking")
+public class ReactiveReadController {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveReadRepository repository;
+    private final UserService userService;
+
+    public ReactiveReadController(ReactiveReadRepository repository, UserService userService) {
+        this.repository = repository;
+        this.userService = userService;
+    }
+
+    @AllowedRoles(AUTHENTICATED)
+    @GetMapping(value = "/tours", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE})
+    @Operation(summary = "Get all tours", security = @SecurityRequirement(name = "bearerAuth"))
+    public Flux<TourDto> getTours() {
+        return repository.findTours();
+    }
+
+    @AllowedRoles(AUTHENTICATED)
+    @GetMapping(value = "/bookings", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get a page of bookings", security = @SecurityRequirement(name = "bearerAuth"))
+    public Mono<ResponseEntity<List<BookingDto>>> getBookings(@Parameter(description = "guide id")
+                                                              @RequestParam(name = "guideId") Optional<Long> guideId,
+                                                              @Parameter(description = "cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page")
+                                                              @RequestParam(name = "after") Optional<Long> after,
+                                                              @Parameter(description = "page size, " + DEFAULT_PAGE_SIZE + " when omitted, " +
+                                                                      "unlike /api/v1/bookings which then returns every booking")
+                                                              @RequestParam(name = "limit") Optional<Integer> limit) {
+        int size = limit.orElse(DEFAULT_PAGE_SIZE);
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new HttpStatusException("limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        Long userId = SecurityUtils.userHasRole(ROLE_ADMIN) ? null : currentUserId();
+        return repository.findBookings(userId, guideId.orElse(null), after.orElse(null), size + 1)
+                .collectList()
+                .map(rows -> page(rows, size));
+    }
+
+    @AllowedRoles(AUTHENTICATED)
+    @GetMapping(value = "/bookings", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Stream all bookings", security = @SecurityRequirement(name = "bearerAuth"))
+    public Flux<BookingDto> streamBookings(@Parameter(description = "guide id")
+                                           @RequestParam(name = "guideId") Optional<Long> guideId,
+                                           @Parameter(description = "id of the last booking already received")
+                                           @RequestParam(name = "after") Optional<Long> after) {
+        Long userId = SecurityUtils.userHasRole(ROLE_ADMIN) ? null : currentUserId();
+        return repository.findBookings(userId, guideId.orElse(null), after.orElse(null), null);
+    }
+
+    /**
+     * Answers with the first {@code size} bookings of a page read one row longer, which tells
+     * whether a next page exists.
+     */
+    private static ResponseEntity<List<BookingDto>> page(List<BookingDto> rows, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(rows.get(size - 1).getId()));
+        }
+        return new ResponseEntity<>(rows, headers, HttpStatus.OK);
+    }
+
+    private Long currentUserId() {
+        Long id = SecurityUtils.currentUserId();
+        if (id != null)
+            return id;
+        return userService
+                .findByUsername(SecurityUtils.currentUserName())
+                .orElseThrow(() -> new NotFoundException("user not found", HttpStatus.NOT_FOUND))
+                .getId();
+    }
+}
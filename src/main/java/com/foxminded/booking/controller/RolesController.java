@@ -3,7 +3,9 @@ package com.foxminded.booking.controller;
 import com.foxminded.booking.model.Role;
 import com.foxminded.booking.model.dto.RoleDto;
 import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.security.AllowedRoles;
 import com.foxminded.booking.service.RoleService;
+import com.foxminded.booking.service.TokenVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,24 +14,25 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static com.foxminded.booking.security.SecurityConstants.isAdmin;
+import static com.foxminded.booking.security.RoleMask.ADMIN;
 
 @RestController
-@PreAuthorize(isAdmin)
+@AllowedRoles(ADMIN)
 @RequestMapping("/api/v1/roles")
 @Tag(name = "Roles Controller", description = "Working with roles")
 public class RolesController {
     private final RoleService roleService;
+    private final TokenVersionService tokenVersionService;
 
-    public RolesController(RoleService roleService) {
+    public RolesController(RoleService roleService, TokenVersionService tokenVersionService) {
         this.roleService = roleService;
+        this.tokenVersionService = tokenVersionService;
     }
 
     @GetMapping
@@ -74,9 +77,13 @@ public class RolesController {
                             ) @org.springframework.web.bind.annotation.RequestBody @Valid Role actual) {
         return roleService.findById(id)
                 .map(role -> {
+                    boolean renamed = !role.getName().equals(actual.getName());
                     role.setName(actual.getName());
                     role.setUsers(actual.getUsers());
-                    return roleService.save(role);
+                    Role saved = roleService.save(role);
+                    if (renamed)
+                        tokenVersionService.revokeRole(id);
+                    return saved;
                 })
                 .orElseThrow(() -> new NotFoundException("role not found", HttpStatus.NOT_FOUND))
                 .toRoleDto();
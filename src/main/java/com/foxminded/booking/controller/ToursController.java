@@ -2,72 +2,168 @@ package com.foxminded.booking.controller;
 
 import com.foxminded.booking.model.Tour;
 import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.model.dto.TourFilterDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
 import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.security.AllowedRoles;
+import com.foxminded.booking.service.TourCapacityService;
+import com.foxminded.booking.service.TourCatalogCache;
 import com.foxminded.booking.service.TourService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
-import static com.foxminded.booking.security.SecurityConstants.isAdmin;
-import static com.foxminded.booking.security.SecurityConstants.isAuthenticated;
+import static com.foxminded.booking.security.RoleMask.ADMIN;
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
 
 @RestController
 @RequestMapping("/api/v1/tours")
 @Tag(name = "Tours Controller", description = "Working with tours")
 public class ToursController {
+    public static final String HAS_NEXT_HEADER = "X-Has-Next";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    /**
+     * An offset is served by reading and skipping every row before it, so deep pages of a broad
+     * filter are refused instead of walking most of the index.
+     */
+    private static final int MAX_OFFSET = 10000;
+    private static final List<String> SORTABLE_FIELDS = Arrays.asList("id", "price", "start", "finish");
+
     private final TourService tourService;
+    private final TourCapacityService tourCapacityService;
+    private final TourCatalogCache tourCatalogCache;
 
-    public ToursController(TourService tourService) {
+    public ToursController(TourService tourService, TourCapacityService tourCapacityService, TourCatalogCache tourCatalogCache) {
         this.tourService = tourService;
+        this.tourCapacityService = tourCapacityService;
+        this.tourCatalogCache = tourCatalogCache;
     }
 
     @GetMapping
-    @PreAuthorize(isAuthenticated)
-    @Operation(summary = "Get all tours", security = @SecurityRequirement(name = "bearerAuth"))
-    public List<TourDto> getTours() {
-        return tourService
-                .findAll()
+    @AllowedRoles(AUTHENTICATED)
+    @Operation(summary = "Get all tours", security = @SecurityRequirement(name = "bearerAuth"),
+            responses = @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TourDto.class)))))
+    public ResponseEntity<byte[]> getTours(@Parameter(description = "ETag of the catalog the client already has")
+                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH) Optional<String> ifNoneMatch) {
+        String eTag = tourCatalogCache.eTag();
+        if (matches(ifNoneMatch, eTag))
+            return notModified(eTag);
+        TourCatalogCache.Catalog catalog = tourService.catalog();
+        return ResponseEntity.ok()
+                .eTag(catalog.getETag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalog.getJson());
+    }
+
+    @GetMapping("/search")
+    @AllowedRoles(AUTHENTICATED)
+    @Operation(summary = "Search tours", security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<TourDto>> searchTours(@Parameter(description = "tour difficulty")
+                                                     @RequestParam(name = "difficulty") Optional<String> difficulty,
+                                                     @Parameter(description = "lowest price, inclusive")
+                                                     @RequestParam(name = "minPrice") Optional<Long> minPrice,
+                                                     @Parameter(description = "highest price, inclusive")
+                                                     @RequestParam(name = "maxPrice") Optional<Long> maxPrice,
+                                                     @Parameter(description = "earliest start date, inclusive")
+                                                     @RequestParam(name = "startFrom") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> startFrom,
+                                                     @Parameter(description = "latest start date, inclusive")
+                                                     @RequestParam(name = "startTo") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> startTo,
+                                                     @Parameter(description = "earliest finish date, inclusive")
+                                                     @RequestParam(name = "finishFrom") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> finishFrom,
+                                                     @Parameter(description = "latest finish date, inclusive")
+                                                     @RequestParam(name = "finishTo") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> finishTo,
+                                                     @Parameter(description = "one of id, price, start, finish, optionally followed by ,asc or ,desc")
+                                                     @RequestParam(name = "sort") Optional<String> sort,
+                                                     @Parameter(description = "page number, starting from 0")
+                                                     @RequestParam(name = "page") Optional<Integer> page,
+                                                     @Parameter(description = "page size")
+                                                     @RequestParam(name = "size") Optional<Integer> size) {
+        int pageNumber = page.orElse(0);
+        int pageSize = size.orElse(DEFAULT_PAGE_SIZE);
+        if (pageNumber < 0)
+            throw new HttpStatusException("page must not be negative", HttpStatus.BAD_REQUEST);
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE)
+            throw new HttpStatusException("size must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        if ((long) pageNumber * pageSize > MAX_OFFSET)
+            throw new HttpStatusException("pages beyond the first " + MAX_OFFSET + " tours are not served, narrow the search instead", HttpStatus.BAD_REQUEST);
+
+        TourFilterDto filter = new TourFilterDto();
+        filter.setDifficulty(difficulty.orElse(null));
+        filter.setMinPrice(minPrice.orElse(null));
+        filter.setMaxPrice(maxPrice.orElse(null));
+        filter.setStartFrom(startFrom.orElse(null));
+        filter.setStartTo(startTo.orElse(null));
+        filter.setFinishFrom(finishFrom.orElse(null));
+        filter.setFinishTo(finishTo.orElse(null));
+
+        Slice<Tour> tours = tourService.search(filter, PageRequest.of(pageNumber, pageSize, parseSort(sort)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HAS_NEXT_HEADER, String.valueOf(tours.hasNext()));
+        List<TourDto> dtos = tours.getContent()
                 .stream()
                 .map(Tour::toTourDto)
                 .collect(Collectors.toList());
+        return new ResponseEntity<>(dtos, headers, HttpStatus.OK);
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize(isAdmin)
+    @AllowedRoles(ADMIN)
     @Operation(summary = "Get tour by id", security = @SecurityRequirement(name = "bearerAuth"))
-    public TourDto getTourById(@Parameter(description = "tour id", required = true)
-                               @PathVariable("id") long id) {
-        return tourService
-                .findById(id)
-                .orElseThrow(() -> new NotFoundException("tour not found", HttpStatus.NOT_FOUND))
-                .toTourDto();
+    public ResponseEntity<TourDto> getTourById(@Parameter(description = "tour id", required = true)
+                                               @PathVariable("id") long id,
+                                               @Parameter(description = "ETag of the tour the client already has")
+                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH) Optional<String> ifNoneMatch) {
+        // taken before the read, so a write in between only makes the tag outdated
+        String eTag = tourCatalogCache.eTag(id);
+        TourDto tour = tourService
+                .findDtoById(id)
+                .orElseThrow(() -> new NotFoundException("tour not found", HttpStatus.NOT_FOUND));
+        if (matches(ifNoneMatch, eTag))
+            return notModified(eTag);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(tour);
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    @PreAuthorize(isAdmin)
+    @AllowedRoles(ADMIN)
     @Operation(summary = "Create tour", security = @SecurityRequirement(name = "bearerAuth"))
     public TourDto createTour(@RequestBody(
             description = "Tour to add",
             required = true,
             content = @Content(schema = @Schema(implementation = Tour.class))
     ) @org.springframework.web.bind.annotation.RequestBody @Valid Tour tour) {
-        return tourService.save(tour).toTourDto();
+        Tour saved = tourService.save(tour);
+        tourCapacityService.register(saved);
+        return saved.toTourDto();
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize(isAuthenticated)
+    @AllowedRoles(AUTHENTICATED)
     @Operation(summary = "Edit tour by id", security = @SecurityRequirement(name = "bearerAuth"))
     public TourDto editTour(@Parameter(description = "tour id", required = true)
                             @PathVariable("id") long id,
@@ -82,18 +178,57 @@ public class ToursController {
                     tour.setDifficulty(actual.getDifficulty());
                     tour.setStart(actual.getStart());
                     tour.setFinish(actual.getFinish());
+                    tour.setCapacity(actual.getCapacity());
                     tour.setBookings(actual.getBookings());
-                    return tourService.save(tour);
+                    Tour saved = tourService.save(tour);
+                    tourCapacityService.register(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new NotFoundException("tour not found", HttpStatus.NOT_FOUND))
                 .toTourDto();
     }
 
     @DeleteMapping("/{id}")
-    @PreAuthorize(isAdmin)
+    @AllowedRoles(ADMIN)
     @Operation(summary = "Delete tour by id", security = @SecurityRequirement(name = "bearerAuth"))
     public void deleteTour(@Parameter(description = "tour id", required = true)
                            @PathVariable("id") long id) {
         tourService.deleteById(id);
+        tourCapacityService.unregister(id);
+    }
+
+    private static boolean matches(Optional<String> ifNoneMatch, String eTag) {
+        if (!ifNoneMatch.isPresent())
+            return false;
+        for (String candidate : ifNoneMatch.get().split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(eTag))
+                return true;
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * Only indexed columns can be sorted on, and id always breaks ties so pages are stable.
+     */
+    private static Sort parseSort(Optional<String> sort) {
+        Sort byId = Sort.by(Sort.Direction.ASC, "id");
+        if (!sort.isPresent())
+            return byId;
+        String[] parts = sort.get().split(",");
+        String field = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(field) || parts.length > 2)
+            throw new HttpStatusException("tours can only be sorted by " + String.join(", ", SORTABLE_FIELDS), HttpStatus.BAD_REQUEST);
+        Sort.Direction direction = parts.length == 2
+                ? Sort.Direction.fromOptionalString(parts[1].trim())
+                .orElseThrow(() -> new HttpStatusException("sort direction must be asc or desc", HttpStatus.BAD_REQUEST))
+                : Sort.Direction.ASC;
+        return field.equals("id") ? Sort.by(direction, "id") : Sort.by(direction, field).and(byId);
     }
 }
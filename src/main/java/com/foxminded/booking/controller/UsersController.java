@@ -1,8 +1,12 @@
 package com.foxminded.booking.controller;
 
 import com.foxminded.booking.model.User;
+import com.foxminded.booking.model.dto.CacheStatsDto;
 import com.foxminded.booking.model.dto.UserDto;
 import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.security.AllowedRoles;
+import com.foxminded.booking.service.TokenVersionService;
+import com.foxminded.booking.service.UserDetailsCache;
 import com.foxminded.booking.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,27 +16,30 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static com.foxminded.booking.security.SecurityConstants.isAdmin;
-import static com.foxminded.booking.security.SecurityConstants.isAuthenticated;
+import static com.foxminded.booking.security.RoleMask.ADMIN;
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
 
 @RestController
 @RequestMapping("/api/v1/users")
 @Tag(name = "Users Controller", description = "Working with users")
 public class UsersController {
     private final UserService userService;
+    private final TokenVersionService tokenVersionService;
+    private final UserDetailsCache userDetailsCache;
 
-    public UsersController(UserService userService) {
+    public UsersController(UserService userService, TokenVersionService tokenVersionService, UserDetailsCache userDetailsCache) {
         this.userService = userService;
+        this.tokenVersionService = tokenVersionService;
+        this.userDetailsCache = userDetailsCache;
     }
 
-    @PreAuthorize(isAdmin)
+    @AllowedRoles(ADMIN)
     @GetMapping
     @Operation(summary = "Get all users", security = @SecurityRequirement(name = "bearerAuth"))
     public List<UserDto> getUsers() {
@@ -43,7 +50,14 @@ public class UsersController {
                 .collect(Collectors.toList());
     }
 
-    @PreAuthorize(isAuthenticated)
+    @AllowedRoles(ADMIN)
+    @GetMapping("/cache")
+    @Operation(summary = "Get user details cache statistics", security = @SecurityRequirement(name = "bearerAuth"))
+    public CacheStatsDto getUserDetailsCacheStats() {
+        return userDetailsCache.stats();
+    }
+
+    @AllowedRoles(AUTHENTICATED)
     @GetMapping("/{id}")
     @Operation(summary = "Get user by id", security = @SecurityRequirement(name = "bearerAuth"))
     public UserDto getUserById(@Parameter(description = "user id", required = true)
@@ -54,7 +68,7 @@ public class UsersController {
                 .toUserDto();
     }
 
-    @PreAuthorize(isAdmin)
+    @AllowedRoles(ADMIN)
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create user", security = @SecurityRequirement(name = "bearerAuth"))
@@ -66,7 +80,7 @@ public class UsersController {
         return userService.save(user).toUserDto();
     }
 
-    @PreAuthorize(isAuthenticated)
+    @AllowedRoles(AUTHENTICATED)
     @PutMapping("/{id}")
     @Operation(summary = "Edit user by id", security = @SecurityRequirement(name = "bearerAuth"))
     public UserDto editUser(@Parameter(description = "user id", required = true)
@@ -84,17 +98,20 @@ public class UsersController {
                     user.setPassword(actual.getPassword());
                     user.setRole(actual.getRole());
                     user.setBookings(actual.getBookings());
-                    return userService.save(user);
+                    User saved = userService.save(user);
+                    tokenVersionService.revoke(id);
+                    return saved;
                 })
                 .orElseThrow(() -> new NotFoundException("user not found", HttpStatus.NOT_FOUND))
                 .toUserDto();
     }
 
-    @PreAuthorize(isAdmin)
+    @AllowedRoles(ADMIN)
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete user by id", security = @SecurityRequirement(name = "bearerAuth"))
     public void deleteUser(@Parameter(description = "user id", required = true)
                            @PathVariable("id") long id) {
         userService.deleteById(id);
+        tokenVersionService.revokeDeleted(id);
     }
 }
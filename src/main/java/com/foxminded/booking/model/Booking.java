@@ -7,9 +7,21 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(
+        name = Booking.DETAILS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("tour"),
+                @NamedAttributeNode(value = "user", subgraph = "user"),
+                @NamedAttributeNode("guide")
+        },
+        subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role"))
+)
 public class Booking {
+    public static final String DETAILS_GRAPH = "Booking.details";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @ManyToOne
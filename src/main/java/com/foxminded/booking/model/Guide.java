@@ -1,6 +1,8 @@
 package com.foxminded.booking.model;
 
 import com.foxminded.booking.model.dto.GuideDto;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
@@ -10,9 +12,13 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "guides")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Guide.CACHE_REGION)
 public class Guide {
+    public static final String CACHE_REGION = "guides";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "guides_seq")
+    @SequenceGenerator(name = "guides_seq", sequenceName = "guides_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @NotEmpty
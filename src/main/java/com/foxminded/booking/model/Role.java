@@ -1,6 +1,8 @@
 package com.foxminded.booking.model;
 
 import com.foxminded.booking.model.dto.RoleDto;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
@@ -10,9 +12,13 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
 public class Role {
+    public static final String CACHE_REGION = "roles";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roles_seq")
+    @SequenceGenerator(name = "roles_seq", sequenceName = "roles_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @NotEmpty
@@ -5,8 +5,11 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.foxminded.booking.model.dto.TourDto;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
@@ -16,9 +19,13 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "tours")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Tour.CACHE_REGION)
 public class Tour {
+    public static final String CACHE_REGION = "tours";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tours_seq")
+    @SequenceGenerator(name = "tours_seq", sequenceName = "tours_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @NotNull
@@ -35,6 +42,9 @@ public class Tour {
     @JsonDeserialize(using = LocalDateDeserializer.class)
     @Column(name = "finish")
     private LocalDate finish;
+    @Min(1)
+    @Column(name = "capacity")
+    private Integer capacity;
     @OneToMany(mappedBy = "tour")
     private List<Booking> bookings = new ArrayList<>();
 
@@ -63,6 +73,7 @@ public class Tour {
         dto.setDifficulty(difficulty);
         dto.setStart(start);
         dto.setFinish(finish);
+        dto.setCapacity(capacity);
         return dto;
     }
 
@@ -106,6 +117,14 @@ public class Tour {
         this.finish = finish;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
     public List<Booking> getBookings() {
         return bookings;
     }
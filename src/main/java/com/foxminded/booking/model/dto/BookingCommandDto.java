@@ -0,0 +1,51 @@
+package com.foxminded.booking.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Objects;
+
+@Schema(description = "Booking Command Entity")
+public class BookingCommandDto {
+    @Schema(description = "Tour Identifier")
+    private Long tourId;
+    @Schema(description = "User Identifier, only taken into account for admins")
+    private Long userId;
+
+    public BookingCommandDto() {
+    }
+
+    public BookingCommandDto(Long tourId, Long userId) {
+        this.tourId = tourId;
+        this.userId = userId;
+    }
+
+    public Long getTourId() {
+        return tourId;
+    }
+
+    public void setTourId(Long tourId) {
+        this.tourId = tourId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingCommandDto that = (BookingCommandDto) o;
+        return Objects.equals(tourId, that.tourId) &&
+                Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tourId, userId);
+    }
+}
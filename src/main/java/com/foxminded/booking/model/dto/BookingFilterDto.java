@@ -0,0 +1,82 @@
+package com.foxminded.booking.model.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Booking search criteria, every empty field matches all bookings.
+ */
+public class BookingFilterDto {
+    private Long tourId;
+    private Long userId;
+    private Long guideId;
+    private String difficulty;
+    private LocalDate startFrom;
+    private LocalDate startTo;
+
+    public Long getTourId() {
+        return tourId;
+    }
+
+    public void setTourId(Long tourId) {
+        this.tourId = tourId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getGuideId() {
+        return guideId;
+    }
+
+    public void setGuideId(Long guideId) {
+        this.guideId = guideId;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(String difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public LocalDate getStartFrom() {
+        return startFrom;
+    }
+
+    public void setStartFrom(LocalDate startFrom) {
+        this.startFrom = startFrom;
+    }
+
+    public LocalDate getStartTo() {
+        return startTo;
+    }
+
+    public void setStartTo(LocalDate startTo) {
+        this.startTo = startTo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingFilterDto that = (BookingFilterDto) o;
+        return Objects.equals(tourId, that.tourId) &&
+                Objects.equals(userId, that.userId) &&
+                Objects.equals(guideId, that.guideId) &&
+                Objects.equals(difficulty, that.difficulty) &&
+                Objects.equals(startFrom, that.startFrom) &&
+                Objects.equals(startTo, that.startTo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tourId, userId, guideId, difficulty, startFrom, startTo);
+    }
+}
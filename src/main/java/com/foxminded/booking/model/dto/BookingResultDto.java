@@ -0,0 +1,82 @@
+package com.foxminded.booking.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+
+import java.util.Objects;
+
+@Schema(description = "Booking Result Entity")
+public class BookingResultDto {
+    @Schema(description = "Position Of The Command In The Request")
+    private int index;
+    @Schema(description = "Result Status")
+    private HttpStatus status;
+    @Schema(description = "Created Booking")
+    private BookingDto bookingDto;
+    @Schema(description = "Failure Message")
+    private String message;
+
+    public static BookingResultDto created(int index, BookingDto bookingDto) {
+        BookingResultDto dto = new BookingResultDto();
+        dto.setIndex(index);
+        dto.setStatus(HttpStatus.CREATED);
+        dto.setBookingDto(bookingDto);
+        return dto;
+    }
+
+    public static BookingResultDto failed(int index, HttpStatus status, String message) {
+        BookingResultDto dto = new BookingResultDto();
+        dto.setIndex(index);
+        dto.setStatus(status);
+        dto.setMessage(message);
+        return dto;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(HttpStatus status) {
+        this.status = status;
+    }
+
+    public BookingDto getBookingDto() {
+        return bookingDto;
+    }
+
+    public void setBookingDto(BookingDto bookingDto) {
+        this.bookingDto = bookingDto;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingResultDto that = (BookingResultDto) o;
+        return index == that.index &&
+                status == that.status &&
+                Objects.equals(bookingDto, that.bookingDto) &&
+                Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, status, bookingDto, message);
+    }
+}
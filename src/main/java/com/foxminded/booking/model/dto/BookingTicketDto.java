@@ -0,0 +1,90 @@
+package com.foxminded.booking.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+
+import java.util.Objects;
+
+@Schema(description = "Booking Ticket Entity")
+public class BookingTicketDto {
+    @Schema(description = "Ticket Identifier")
+    private String id;
+    @Schema(description = "Ticket Status, ACCEPTED while the booking is waiting to be written")
+    private HttpStatus status;
+    @Schema(description = "Created Booking")
+    private BookingDto bookingDto;
+    @Schema(description = "Failure Message")
+    private String message;
+
+    public static BookingTicketDto accepted(String id) {
+        BookingTicketDto dto = new BookingTicketDto();
+        dto.setId(id);
+        dto.setStatus(HttpStatus.ACCEPTED);
+        return dto;
+    }
+
+    public static BookingTicketDto completed(String id, BookingResultDto result) {
+        BookingTicketDto dto = new BookingTicketDto();
+        dto.setId(id);
+        dto.setStatus(result.getStatus());
+        dto.setBookingDto(result.getBookingDto());
+        dto.setMessage(result.getMessage());
+        return dto;
+    }
+
+    public static BookingTicketDto failed(String id, HttpStatus status, String message) {
+        BookingTicketDto dto = new BookingTicketDto();
+        dto.setId(id);
+        dto.setStatus(status);
+        dto.setMessage(message);
+        return dto;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(HttpStatus status) {
+        this.status = status;
+    }
+
+    public BookingDto getBookingDto() {
+        return bookingDto;
+    }
+
+    public void setBookingDto(BookingDto bookingDto) {
+        this.bookingDto = bookingDto;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingTicketDto that = (BookingTicketDto) o;
+        return Objects.equals(id, that.id) &&
+                status == that.status &&
+                Objects.equals(bookingDto, that.bookingDto) &&
+                Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, bookingDto, message);
+    }
+}
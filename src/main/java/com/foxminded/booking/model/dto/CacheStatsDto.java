@@ -0,0 +1,76 @@
+package com.foxminded.booking.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Objects;
+
+@Schema(description = "Cache Statistics Entity")
+public class CacheStatsDto {
+    @Schema(description = "Current Entries")
+    private long size;
+    @Schema(description = "Maximum Entries")
+    private long maxSize;
+    @Schema(description = "Lookups Served From Cache")
+    private long hits;
+    @Schema(description = "Lookups Not Served From Cache")
+    private long misses;
+    @Schema(description = "Entries Dropped On Expiry Or Overflow")
+    private long evictions;
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheStatsDto that = (CacheStatsDto) o;
+        return size == that.size &&
+                maxSize == that.maxSize &&
+                hits == that.hits &&
+                misses == that.misses &&
+                evictions == that.evictions;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, maxSize, hits, misses, evictions);
+    }
+}
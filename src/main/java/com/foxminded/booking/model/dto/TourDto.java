@@ -25,6 +25,8 @@ public class TourDto {
     @JsonDeserialize(using = LocalDateDeserializer.class)
     @Schema(description = "Tour Finish Date")
     private LocalDate finish;
+    @Schema(description = "Tour Capacity, unlimited when empty")
+    private Integer capacity;
 
     public Long getId() {
         return id;
@@ -66,6 +68,14 @@ public class TourDto {
         this.finish = finish;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,92 @@
+package com.foxminded.booking.model.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Tour search criteria, every empty field matches all tours.
+ */
+public class TourFilterDto {
+    private String difficulty;
+    private Long minPrice;
+    private Long maxPrice;
+    private LocalDate startFrom;
+    private LocalDate startTo;
+    private LocalDate finishFrom;
+    private LocalDate finishTo;
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(String difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public Long getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Long minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Long getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Long maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public LocalDate getStartFrom() {
+        return startFrom;
+    }
+
+    public void setStartFrom(LocalDate startFrom) {
+        this.startFrom = startFrom;
+    }
+
+    public LocalDate getStartTo() {
+        return startTo;
+    }
+
+    public void setStartTo(LocalDate startTo) {
+        this.startTo = startTo;
+    }
+
+    public LocalDate getFinishFrom() {
+        return finishFrom;
+    }
+
+    public void setFinishFrom(LocalDate finishFrom) {
+        this.finishFrom = finishFrom;
+    }
+
+    public LocalDate getFinishTo() {
+        return finishTo;
+    }
+
+    public void setFinishTo(LocalDate finishTo) {
+        this.finishTo = finishTo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TourFilterDto that = (TourFilterDto) o;
+        return Objects.equals(difficulty, that.difficulty) &&
+                Objects.equals(minPrice, that.minPrice) &&
+                Objects.equals(maxPrice, that.maxPrice) &&
+                Objects.equals(startFrom, that.startFrom) &&
+                Objects.equals(startTo, that.startTo) &&
+                Objects.equals(finishFrom, that.finishFrom) &&
+                Objects.equals(finishTo, that.finishTo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(difficulty, minPrice, maxPrice, startFrom, startTo, finishFrom, finishTo);
+    }
+}
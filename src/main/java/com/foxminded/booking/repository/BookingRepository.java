@@ -1,16 +1,70 @@
 package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.Booking;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingSearchRepository {
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Fetches the associations of {@link Booking#DETAILS_GRAPH} with explicit joins. A derived
+     * finder combined with the graph filters on the joined tour, user or guide id, which hides
+     * the bookings foreign key columns and their indexes from the database, while {@code b.tour.id}
+     * in a query of its own is translated to {@code bookings.tour_id}.
+     */
+    String WITH_DETAILS = "select b from Booking b left join fetch b.tour left join fetch b.user u " +
+            "left join fetch u.role left join fetch b.guide ";
+
+    @Override
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAll();
+
+    @Query(WITH_DETAILS + "where b.tour.id = ?1")
     List<Booking> findByTourId(Long tourId);
 
+    @Query(WITH_DETAILS + "where b.user.id = ?1")
     List<Booking> findByUserId(Long userId);
 
+    @Query(WITH_DETAILS + "where b.guide.id = ?1")
     List<Booking> findByGuideId(Long guideId);
+
+    @Query(WITH_DETAILS + "where b.user.id = ?1 and b.guide.id = ?2")
+    List<Booking> findByUserIdAndGuideId(Long userId, Long guideId);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @Query(WITH_DETAILS + "where b.guide.id = ?1 and b.id > ?2 order by b.id")
+    List<Booking> findByGuideIdAndIdGreaterThanOrderByIdAsc(Long guideId, Long afterId, Pageable pageable);
+
+    @Query(WITH_DETAILS + "where b.user.id = ?1 and b.id > ?2 order by b.id")
+    List<Booking> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable pageable);
+
+    @Query(WITH_DETAILS + "where b.user.id = ?1 and b.guide.id = ?2 and b.id > ?3 order by b.id")
+    List<Booking> findByUserIdAndGuideIdAndIdGreaterThanOrderByIdAsc(Long userId, Long guideId, Long afterId, Pageable pageable);
+
+    /**
+     * Streams every booking in id order through a forward-only cursor that holds at most
+     * {@link #EXPORT_FETCH_SIZE} rows at a time. Has to be consumed inside a transaction.
+     */
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select b from Booking b order by b.id")
+    Stream<Booking> streamAll();
 }
@@ -0,0 +1,16 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Booking;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface BookingSearchRepository {
+
+    /**
+     * Reads up to {@code limit} matching bookings with ids above {@code afterId} in id order. The
+     * ids are selected first with only the joins the specification needs, the page is then
+     * loaded by id together with its tour, user and guide.
+     */
+    List<Booking> findPage(Specification<Booking> specification, Long afterId, int limit);
+}
@@ -0,0 +1,44 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Booking;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collections;
+import java.util.List;
+
+public class BookingSearchRepositoryImpl implements BookingSearchRepository {
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
+    private final EntityManager entityManager;
+
+    public BookingSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Booking> findPage(Specification<Booking> specification, Long afterId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Booking> root = query.from(Booking.class);
+        Predicate predicate = builder.greaterThan(root.get("id"), afterId);
+        Predicate matching = specification != null ? specification.toPredicate(root, query, builder) : null;
+        query.select(root.get("id"))
+                .where(matching != null ? builder.and(matching, predicate) : predicate)
+                .orderBy(builder.asc(root.get("id")));
+
+        List<Long> ids = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty())
+            return Collections.emptyList();
+        return entityManager.createQuery("select b from Booking b where b.id in :ids order by b.id", Booking.class)
+                .setParameter("ids", ids)
+                .setHint(FETCH_GRAPH, entityManager.getEntityGraph(Booking.DETAILS_GRAPH))
+                .getResultList();
+    }
+}
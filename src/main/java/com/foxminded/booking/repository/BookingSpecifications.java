@@ -0,0 +1,63 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Booking;
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+
+/**
+ * Builds booking queries out of the filled in search criteria only. Tour, user and guide ids are
+ * compared on the bookings foreign keys, tours are joined only for difficulty and date criteria
+ * and then just once, however many of them are set.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> matching(BookingFilterDto filter) {
+        return Specification.where(hasTour(filter.getTourId()))
+                .and(hasUser(filter.getUserId()))
+                .and(hasGuide(filter.getGuideId()))
+                .and(hasDifficulty(filter.getDifficulty()))
+                .and(startFrom(filter.getStartFrom()))
+                .and(startTo(filter.getStartTo()));
+    }
+
+    public static Specification<Booking> hasTour(Long tourId) {
+        return tourId == null ? null : (root, query, builder) -> builder.equal(root.get("tour").get("id"), tourId);
+    }
+
+    public static Specification<Booking> hasUser(Long userId) {
+        return userId == null ? null : (root, query, builder) -> builder.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Booking> hasGuide(Long guideId) {
+        return guideId == null ? null : (root, query, builder) -> builder.equal(root.get("guide").get("id"), guideId);
+    }
+
+    public static Specification<Booking> hasDifficulty(String difficulty) {
+        return difficulty == null ? null : (root, query, builder) -> builder.equal(tour(root).get("difficulty"), difficulty);
+    }
+
+    public static Specification<Booking> startFrom(LocalDate date) {
+        return date == null ? null : (root, query, builder) -> builder.greaterThanOrEqualTo(tour(root).get("start"), date);
+    }
+
+    public static Specification<Booking> startTo(LocalDate date) {
+        return date == null ? null : (root, query, builder) -> builder.lessThanOrEqualTo(tour(root).get("start"), date);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Join<Booking, Tour> tour(Root<Booking> root) {
+        for (Join<Booking, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("tour"))
+                return (Join<Booking, Tour>) join;
+        }
+        return root.join("tour");
+    }
+}
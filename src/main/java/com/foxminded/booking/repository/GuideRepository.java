@@ -2,9 +2,21 @@ package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.Guide;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface GuideRepository extends JpaRepository<Guide, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Guide> findAll();
 
+    @Query("select g.id, g.name, count(b.id) from Guide g left join g.bookings b group by g.id, g.name order by g.id")
+    List<Object[]> findAllWithBookingsCount();
 }
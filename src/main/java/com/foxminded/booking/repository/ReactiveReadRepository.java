@@ -0,0 +1,164 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.GuideDto;
+import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.model.dto.UserDto;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only queries for tours and bookings over a non-blocking R2DBC driver. Rows are mapped
+ * straight into DTOs and emitted as the driver decodes them, so a slow subscriber holds back
+ * the fetch instead of having the whole result buffered.
+ * <p>
+ * The pool is private to this repository and is not exposed as a connection factory bean, the
+ * JDBC data source used by JPA and Flyway stays in place next to it.
+ */
+@Repository
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveReadRepository {
+    private static final String TOURS_QUERY =
+            "select id, price, difficulty, start, finish, capacity from tours order by id";
+    private static final String BOOKINGS_QUERY =
+            "select b.id, b.tour_id, t.price, t.difficulty, t.start, t.finish, t.capacity, " +
+                    "b.user_id, u.first_name, u.last_name, u.username, r.name as role_name, " +
+                    "b.guide_id, g.name as guide_name " +
+                    "from bookings b " +
+                    "left join tours t on t.id = b.tour_id " +
+                    "left join users u on u.id = b.user_id " +
+                    "left join roles r on r.id = u.role_id " +
+                    "left join guides g on g.id = b.guide_id";
+
+    private final ConnectionPool pool;
+
+    public ReactiveReadRepository(@Value("${reactive.r2dbc.url}") String url,
+                                  @Value("${reactive.r2dbc.username:}") String username,
+                                  @Value("${reactive.r2dbc.password:}") String password,
+                                  @Value("${reactive.r2dbc.max-pool-size:20}") int maxPoolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .maxSize(maxPoolSize)
+                .build());
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+
+    public Flux<TourDto> findTours() {
+        return query(TOURS_QUERY, new ArrayList<>(), row -> toTourDto(row, toLong(row.get("id", Number.class))));
+    }
+
+    /**
+     * Bookings in id order, restricted to the given user and guide and to ids after the given one
+     * when they are not null, and to at most {@code limit} rows when it is not null.
+     */
+    public Flux<BookingDto> findBookings(Long userId, Long guideId, Long afterId, Integer limit) {
+        StringBuilder sql = new StringBuilder(BOOKINGS_QUERY);
+        List<Object> parameters = new ArrayList<>();
+        where(sql, parameters, "b.user_id", userId);
+        where(sql, parameters, "b.guide_id", guideId);
+        if (afterId != null) {
+            parameters.add(afterId);
+            sql.append(parameters.size() == 1 ? " where" : " and").append(" b.id > $").append(parameters.size());
+        }
+        sql.append(" order by b.id");
+        if (limit != null) {
+            parameters.add(limit);
+            sql.append(" limit $").append(parameters.size());
+        }
+        return query(sql.toString(), parameters, ReactiveReadRepository::toBookingDto);
+    }
+
+    private static void where(StringBuilder sql, List<Object> parameters, String column, Long value) {
+        if (value == null)
+            return;
+        parameters.add(value);
+        sql.append(parameters.size() == 1 ? " where " : " and ").append(column).append(" = $").append(parameters.size());
+    }
+
+    private <T> Flux<T> query(String sql, List<Object> parameters, RowMapper<T> mapper) {
+        return Flux.usingWhen(
+                pool.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < parameters.size(); i++) {
+                        statement.bind("$" + (i + 1), parameters.get(i));
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.map((row, metadata) -> mapper.map(row)));
+                },
+                Connection::close
+        );
+    }
+
+    private static TourDto toTourDto(Row row, Long id) {
+        TourDto dto = new TourDto();
+        dto.setId(id);
+        dto.setPrice(toLong(row.get("price", Number.class)));
+        dto.setDifficulty(row.get("difficulty", String.class));
+        dto.setStart(row.get("start", LocalDate.class));
+        dto.setFinish(row.get("finish", LocalDate.class));
+        Number capacity = row.get("capacity", Number.class);
+        dto.setCapacity(capacity != null ? capacity.intValue() : null);
+        return dto;
+    }
+
+    private static BookingDto toBookingDto(Row row) {
+        BookingDto dto = new BookingDto();
+        dto.setId(toLong(row.get("id", Number.class)));
+
+        Long tourId = toLong(row.get("tour_id", Number.class));
+        if (tourId != null)
+            dto.setTourDto(toTourDto(row, tourId));
+
+        Long userId = toLong(row.get("user_id", Number.class));
+        if (userId != null) {
+            UserDto user = new UserDto();
+            user.setId(userId);
+            user.setFirstName(row.get("first_name", String.class));
+            user.setLastName(row.get("last_name", String.class));
+            user.setUsername(row.get("username", String.class));
+            user.setRole(row.get("role_name", String.class));
+            dto.setUserDto(user);
+        }
+
+        Long guideId = toLong(row.get("guide_id", Number.class));
+        if (guideId != null) {
+            GuideDto guide = new GuideDto();
+            guide.setId(guideId);
+            guide.setName(row.get("guide_name", String.class));
+            dto.setGuideDto(guide);
+        }
+        return dto;
+    }
+
+    private static Long toLong(Number number) {
+        return number != null ? number.longValue() : null;
+    }
+
+    private interface RowMapper<T> {
+        T map(Row row);
+    }
+}
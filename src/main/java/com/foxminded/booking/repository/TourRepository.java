@@ -2,9 +2,26 @@ package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.Tour;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface TourRepository extends JpaRepository<Tour, Long> {
+public interface TourRepository extends JpaRepository<Tour, Long>, TourSearchRepository, TourSeatsRepository {
+
+    @Query(value = "select id, capacity, booked from tours where capacity is not null", nativeQuery = true)
+    List<Object[]> findCapacitiesWithBooked();
+
+    @Query(value = "select booked from tours where id = :id", nativeQuery = true)
+    int findBooked(@Param("id") Long id);
+
+    @Query(value = "select version from tour_catalog_version", nativeQuery = true)
+    long findCatalogVersion();
 
+    @Modifying
+    @Query(value = "update tour_catalog_version set version = version + 1", nativeQuery = true)
+    int incrementCatalogVersion();
 }
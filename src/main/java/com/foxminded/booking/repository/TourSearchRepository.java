@@ -0,0 +1,15 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Tour;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface TourSearchRepository {
+
+    /**
+     * Reads one page of matching tours without counting all of them: a single extra row is
+     * fetched to tell whether a next page exists.
+     */
+    Slice<Tour> findSlice(Specification<Tour> specification, Pageable pageable);
+}
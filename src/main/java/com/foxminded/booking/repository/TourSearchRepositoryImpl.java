@@ -0,0 +1,42 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Tour;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class TourSearchRepositoryImpl implements TourSearchRepository {
+    private final EntityManager entityManager;
+
+    public TourSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Slice<Tour> findSlice(Specification<Tour> specification, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tour> query = builder.createQuery(Tour.class);
+        Root<Tour> root = query.from(Tour.class);
+        Predicate predicate = specification != null ? specification.toPredicate(root, query, builder) : null;
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        int size = pageable.getPageSize();
+        List<Tour> tours = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = tours.size() > size;
+        return new SliceImpl<>(hasNext ? tours.subList(0, size) : tours, pageable, hasNext);
+    }
+}
@@ -0,0 +1,16 @@
+package com.foxminded.booking.repository;
+
+public interface TourSeatsRepository {
+
+    /**
+     * Takes a seat on the tour in the current transaction unless the tour is full, in which case
+     * nothing changes and {@code false} is returned. The tour row stays locked until the
+     * transaction ends, so concurrent bookings of the same tour cannot both take the last seat.
+     */
+    boolean takeSeat(Long tourId);
+
+    /**
+     * Gives back a seat taken on the tour.
+     */
+    void freeSeat(Long tourId);
+}
@@ -0,0 +1,37 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Booking;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+
+public class TourSeatsRepositoryImpl implements TourSeatsRepository {
+    private final EntityManager entityManager;
+
+    public TourSeatsRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public boolean takeSeat(Long tourId) {
+        return update("update tours set booked = booked + 1 where id = :id and (capacity is null or booked < capacity)", tourId) == 1;
+    }
+
+    @Override
+    public void freeSeat(Long tourId) {
+        update("update tours set booked = booked - 1 where id = :id and booked > 0", tourId);
+    }
+
+    /**
+     * Runs the update synchronized on bookings only. The booked column is not mapped on
+     * {@code Tour}, so tours in the second-level cache stay valid and are not evicted by every
+     * booking, which a native update without query spaces would do.
+     */
+    private int update(String sql, Long tourId) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Booking.class)
+                .setParameter("id", tourId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,56 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.TourFilterDto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Builds tour queries out of the filled in search criteria only, so the database gets a plain
+ * conjunction it can match against the tours indexes instead of {@code :param is null or ...}
+ * predicates that defeat them.
+ */
+public final class TourSpecifications {
+
+    private TourSpecifications() {
+    }
+
+    public static Specification<Tour> matching(TourFilterDto filter) {
+        return Specification.where(hasDifficulty(filter.getDifficulty()))
+                .and(priceFrom(filter.getMinPrice()))
+                .and(priceTo(filter.getMaxPrice()))
+                .and(startFrom(filter.getStartFrom()))
+                .and(startTo(filter.getStartTo()))
+                .and(finishFrom(filter.getFinishFrom()))
+                .and(finishTo(filter.getFinishTo()));
+    }
+
+    public static Specification<Tour> hasDifficulty(String difficulty) {
+        return difficulty == null ? null : (root, query, builder) -> builder.equal(root.get("difficulty"), difficulty);
+    }
+
+    public static Specification<Tour> priceFrom(Long price) {
+        return price == null ? null : (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("price"), price);
+    }
+
+    public static Specification<Tour> priceTo(Long price) {
+        return price == null ? null : (root, query, builder) -> builder.lessThanOrEqualTo(root.get("price"), price);
+    }
+
+    public static Specification<Tour> startFrom(LocalDate date) {
+        return date == null ? null : (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("start"), date);
+    }
+
+    public static Specification<Tour> startTo(LocalDate date) {
+        return date == null ? null : (root, query, builder) -> builder.lessThanOrEqualTo(root.get("start"), date);
+    }
+
+    public static Specification<Tour> finishFrom(LocalDate date) {
+        return date == null ? null : (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("finish"), date);
+    }
+
+    public static Specification<Tour> finishTo(LocalDate date) {
+        return date == null ? null : (root, query, builder) -> builder.lessThanOrEqualTo(root.get("finish"), date);
+    }
+}
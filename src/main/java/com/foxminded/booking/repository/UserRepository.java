@@ -2,11 +2,39 @@ package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    @Query(value = "select id, token_version from users where token_version > 0", nativeQuery = true)
+    List<Object[]> findTokenVersions();
+
+    @Query(value = "select id, token_version from users where role_id = :roleId and token_version > 0", nativeQuery = true)
+    List<Object[]> findTokenVersionsByRoleId(@Param("roleId") Long roleId);
+
+    @Query(value = "select token_version from users where id = :id", nativeQuery = true)
+    Optional<Number> findTokenVersion(@Param("id") Long id);
+
+    @Query(value = "select user_id from revoked_users", nativeQuery = true)
+    List<Number> findRevokedUserIds();
+
+    @Modifying
+    @Query(value = "insert into revoked_users (user_id) values (:id)", nativeQuery = true)
+    int insertRevokedUser(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update users set token_version = token_version + 1 where id = :id", nativeQuery = true)
+    int incrementTokenVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update users set token_version = token_version + 1 where role_id = :roleId", nativeQuery = true)
+    int incrementRoleTokenVersions(@Param("roleId") Long roleId);
 }
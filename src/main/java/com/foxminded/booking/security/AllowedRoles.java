@@ -0,0 +1,14 @@
+package com.foxminded.booking.security;
+
+import java.lang.annotation.*;
+
+/**
+ * Restricts a controller or one of its methods to callers holding any of the given
+ * {@link RoleMask} bits. A method level annotation overrides the one on its class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AllowedRoles {
+    int value();
+}
@@ -0,0 +1,29 @@
+package com.foxminded.booking.security;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.method.MethodSecurityMetadataSource;
+import org.springframework.security.access.vote.AffirmativeBased;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.config.annotation.method.configuration.GlobalMethodSecurityConfiguration;
+
+import java.util.Collections;
+
+/**
+ * Method security driven by {@link AllowedRoles} only. Access decisions compare role masks and
+ * never evaluate expressions.
+ */
+@Configuration
+@EnableGlobalMethodSecurity
+public class MethodSecurityConfig extends GlobalMethodSecurityConfiguration {
+
+    @Override
+    protected MethodSecurityMetadataSource customMethodSecurityMetadataSource() {
+        return new RoleMaskSecurityMetadataSource();
+    }
+
+    @Override
+    protected AccessDecisionManager accessDecisionManager() {
+        return new AffirmativeBased(Collections.singletonList(new RoleMaskVoter()));
+    }
+}
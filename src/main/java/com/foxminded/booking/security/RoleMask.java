@@ -0,0 +1,59 @@
+package com.foxminded.booking.security;
+
+import com.foxminded.booking.security.jwt.JwtUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * One bit per role. A principal carries the bits of all its roles, a guarded method the bits of
+ * the roles allowed to call it, so an access check is a single {@code and}.
+ */
+public final class RoleMask {
+    public static final int ADMIN = 1;
+    public static final int USER = 1 << 1;
+    public static final int AUTHENTICATED = ADMIN | USER;
+
+    private RoleMask() {
+    }
+
+    public static int of(String role) {
+        if (role == null)
+            return 0;
+        switch (role) {
+            case ROLE_ADMIN:
+                return ADMIN;
+            case ROLE_USER:
+                return USER;
+            default:
+                return 0;
+        }
+    }
+
+    public static int of(Collection<? extends GrantedAuthority> authorities) {
+        int mask = 0;
+        if (authorities != null) {
+            for (GrantedAuthority authority : authorities) {
+                mask |= of(authority.getAuthority());
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Reads the mask precomputed on a {@link JwtUser} principal, other principals have their
+     * authorities scanned.
+     */
+    public static int of(Authentication authentication) {
+        if (authentication == null)
+            return 0;
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtUser)
+            return ((JwtUser) principal).getRoleMask();
+        return of(authentication.getAuthorities());
+    }
+}
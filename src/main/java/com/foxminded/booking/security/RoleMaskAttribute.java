@@ -0,0 +1,28 @@
+package com.foxminded.booking.security;
+
+import org.springframework.security.access.ConfigAttribute;
+
+/**
+ * Roles allowed to invoke a method, as {@link RoleMask} bits.
+ */
+public class RoleMaskAttribute implements ConfigAttribute {
+    private final int mask;
+
+    public RoleMaskAttribute(int mask) {
+        this.mask = mask;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    @Override
+    public String getAttribute() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "RoleMask[" + Integer.toBinaryString(mask) + "]";
+    }
+}
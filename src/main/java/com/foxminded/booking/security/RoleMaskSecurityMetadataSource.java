@@ -0,0 +1,37 @@
+package com.foxminded.booking.security;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.method.AbstractFallbackMethodSecurityMetadataSource;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Turns {@link AllowedRoles} into a {@link RoleMaskAttribute} once per method, the method
+ * security interceptor caches what is returned here.
+ */
+public class RoleMaskSecurityMetadataSource extends AbstractFallbackMethodSecurityMetadataSource {
+
+    @Override
+    protected Collection<ConfigAttribute> findAttributes(Method method, Class<?> targetClass) {
+        return attributes(AnnotationUtils.findAnnotation(method, AllowedRoles.class));
+    }
+
+    @Override
+    protected Collection<ConfigAttribute> findAttributes(Class<?> clazz) {
+        return attributes(AnnotationUtils.findAnnotation(clazz, AllowedRoles.class));
+    }
+
+    @Override
+    public Collection<ConfigAttribute> getAllConfigAttributes() {
+        return null;
+    }
+
+    private static Collection<ConfigAttribute> attributes(AllowedRoles allowedRoles) {
+        if (allowedRoles == null)
+            return null;
+        return Collections.singletonList(new RoleMaskAttribute(allowedRoles.value()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.foxminded.booking.security;
+
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.core.Authentication;
+
+import java.util.Collection;
+
+/**
+ * Grants access when the caller's role mask shares a bit with the mask of the invoked method.
+ */
+public class RoleMaskVoter implements AccessDecisionVoter<Object> {
+
+    @Override
+    public boolean supports(ConfigAttribute attribute) {
+        return attribute instanceof RoleMaskAttribute;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public int vote(Authentication authentication, Object object, Collection<ConfigAttribute> attributes) {
+        for (ConfigAttribute attribute : attributes) {
+            if (attribute instanceof RoleMaskAttribute) {
+                int required = ((RoleMaskAttribute) attribute).getMask();
+                return (RoleMask.of(authentication) & required) != 0 ? ACCESS_GRANTED : ACCESS_DENIED;
+            }
+        }
+        return ACCESS_ABSTAIN;
+    }
+}
@@ -1,6 +1,10 @@
 package com.foxminded.booking.security.jwt;
 
+import com.foxminded.booking.service.RoleRegistry;
+import com.foxminded.booking.service.TokenVersionService;
 import com.foxminded.booking.service.UserService;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,28 +18,61 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 
+import static com.foxminded.booking.security.jwt.JwtTokenProvider.*;
+
 @Component
 public class JwtTokenFilter extends GenericFilterBean {
     private final JwtTokenProvider tokenProvider;
     private final UserService userService;
+    private final TokenVersionService tokenVersionService;
+    private final RoleRegistry roleRegistry;
+    private final boolean stateless;
 
-    public JwtTokenFilter(JwtTokenProvider tokenProvider, UserService userService) {
+    public JwtTokenFilter(JwtTokenProvider tokenProvider, UserService userService, TokenVersionService tokenVersionService,
+                          RoleRegistry roleRegistry, @Value("${jwt.stateless:false}") boolean stateless) {
         this.tokenProvider = tokenProvider;
         this.userService = userService;
+        this.tokenVersionService = tokenVersionService;
+        this.roleRegistry = roleRegistry;
+        this.stateless = stateless;
     }
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         String token = tokenProvider.resolveToken((HttpServletRequest) servletRequest);
-        if (token != null && tokenProvider.validateToken(token)) {
-            UserDetails userDetails = userService.loadUserByUsername(tokenProvider.getUsernameFromToken(token));
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    "",
-                    userDetails.getAuthorities()
-            );
-            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        if (token != null) {
+            Claims claims = tokenProvider.parseToken(token);
+            UserDetails userDetails = stateless && claims.containsKey(USER_ID_CLAIM)
+                    ? userFromClaims(claims)
+                    : userService.loadUserByUsername(claims.getSubject());
+            if (userDetails != null) {
+                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        "",
+                        userDetails.getAuthorities()
+                );
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            }
         }
         filterChain.doFilter(servletRequest, servletResponse);
     }
+
+    /**
+     * Builds the principal from verified claims only. Returns null when the token was issued
+     * before the user's last edit, so the request stays unauthenticated.
+     */
+    private JwtUser userFromClaims(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Number.class).longValue();
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        if (tokenVersion == null || !tokenVersionService.isCurrent(userId, tokenVersion.intValue()))
+            return null;
+        return new JwtUser(
+                userId,
+                null,
+                null,
+                claims.getSubject(),
+                null,
+                roleRegistry.authorities(claims.get(ROLE_CLAIM, String.class))
+        );
+    }
 }
@@ -1,41 +1,106 @@
 package com.foxminded.booking.security.jwt;
 
+import com.foxminded.booking.model.User;
 import com.foxminded.booking.model.exception.JwtAuthenticationException;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.jsonwebtoken.impl.TextCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 @Component
 public class JwtTokenProvider {
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
 
-    public String generateToken(String username) {
+    private static final long TOKEN_VALIDITY = 3600000;
+    private static final int MAX_VERIFIED_TOKENS = 10000;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Read-only claims of tokens whose signature was already checked, keyed by the token hash
+     * and kept until the token expires or is among the oldest once the cache is full.
+     */
+    private final ConcurrentMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    /**
+     * Hashes in the order the tokens were verified. Every token is valid for the same time, so
+     * this is close to expiry order and the head is what gets evicted first.
+     */
+    private final Queue<String> verificationOrder = new ConcurrentLinkedQueue<>();
+
+    private final byte[] signingKey;
+
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret) {
+        this.signingKey = TextCodec.BASE64.decode(jwtSecret);
+    }
+
+    public String generateToken(User user, int tokenVersion) {
         Date now = new Date();
-        Date expirationDate = new Date(now.getTime() + 3600000);
+        Date expirationDate = new Date(now.getTime() + TOKEN_VALIDITY);
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().getName())
+                .claim(TOKEN_VERSION_CLAIM, tokenVersion)
                 .setExpiration(expirationDate)
-                .signWith(SignatureAlgorithm.HS256, jwtSecret)
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the token once and returns its claims, which cannot be modified. Tokens verified
+     * earlier are answered from memory without parsing or checking the signature again.
+     */
+    public Claims parseToken(String token) {
+        if (token == null)
+            throw new JwtAuthenticationException("JWT is expired or invalid");
+        String key = hash(token);
+        VerifiedToken verified = verifiedTokens.get(key);
+        if (verified != null) {
+            if (!verified.isExpired(System.currentTimeMillis()))
+                return verified.claims;
+            verifiedTokens.remove(key, verified);
+            throw new JwtAuthenticationException("JWT is expired or invalid");
+        }
+
+        Claims claims;
         try {
-            Jws<Claims> claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token);
-            if (claims.getBody().getExpiration().before(new Date()))
-                return false;
-            return true;
+            claims = Jwts.parser().setSigningKey(signingKey).parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             throw new JwtAuthenticationException("JWT is expired or invalid");
         }
+        if (claims.getExpiration() == null || claims.getExpiration().before(new Date()))
+            throw new JwtAuthenticationException("JWT is expired or invalid");
+        return cache(key, claims);
+    }
+
+    public boolean validateToken(String token) {
+        parseToken(token);
+        return true;
     }
 
     public String getUsernameFromToken(String token) {
-        return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+        return parseToken(token).getSubject();
     }
 
     public String resolveToken(HttpServletRequest request) {
@@ -44,4 +109,49 @@ public class JwtTokenProvider {
             return bearerToken.substring(7);
         return null;
     }
+
+    /**
+     * Caches a read-only copy of the claims and drops expired tokens from the head of the
+     * verification order, then the oldest ones while the cache is over its size. Each token is
+     * queued and dropped once, so caching stays constant time however full the cache is.
+     */
+    private Claims cache(String key, Claims claims) {
+        VerifiedToken verified = new VerifiedToken(
+                new DefaultClaims(Collections.unmodifiableMap(new LinkedHashMap<>(claims))),
+                claims.getExpiration().getTime());
+        if (verifiedTokens.putIfAbsent(key, verified) == null)
+            verificationOrder.add(key);
+        long now = System.currentTimeMillis();
+        while (true) {
+            String oldest = verificationOrder.peek();
+            if (oldest == null)
+                break;
+            VerifiedToken head = verifiedTokens.get(oldest);
+            if (head != null && !head.isExpired(now) && verifiedTokens.size() <= MAX_VERIFIED_TOKENS)
+                break;
+            String evicted = verificationOrder.poll();
+            if (evicted != null)
+                verifiedTokens.remove(evicted);
+        }
+        return verified.claims;
+    }
+
+    private static String hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
 }
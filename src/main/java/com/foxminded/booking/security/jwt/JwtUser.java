@@ -1,5 +1,6 @@
 package com.foxminded.booking.security.jwt;
 
+import com.foxminded.booking.security.RoleMask;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -9,11 +10,13 @@ import java.util.Objects;
 
 @Component
 public class JwtUser implements UserDetails {
+    private Long id;
     private String firstName;
     private String lastName;
     private String username;
     private String password;
     private Collection<? extends GrantedAuthority> roles;
+    private int roleMask;
 
     public JwtUser() {
     }
@@ -24,6 +27,17 @@ public class JwtUser implements UserDetails {
         this.username = username;
         this.password = password;
         this.roles = roles;
+        this.roleMask = RoleMask.of(roles);
+    }
+
+    public JwtUser(Long id, String firstName, String lastName, String username, String password, Collection<? extends GrantedAuthority> roles) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.username = username;
+        this.password = password;
+        this.roles = roles;
+        this.roleMask = RoleMask.of(roles);
     }
 
     @Override
@@ -61,6 +75,14 @@ public class JwtUser implements UserDetails {
         return true;
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -91,6 +113,14 @@ public class JwtUser implements UserDetails {
 
     public void setRoles(Collection<? extends GrantedAuthority> roles) {
         this.roles = roles;
+        this.roleMask = RoleMask.of(roles);
+    }
+
+    /**
+     * {@link RoleMask} bits of the roles, computed whenever the roles are set.
+     */
+    public int getRoleMask() {
+        return roleMask;
     }
 
     @Override
@@ -98,15 +128,16 @@ public class JwtUser implements UserDetails {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         JwtUser jwtUser = (JwtUser) o;
-        return firstName.equals(jwtUser.firstName) &&
-                lastName.equals(jwtUser.lastName) &&
+        return Objects.equals(id, jwtUser.id) &&
+                Objects.equals(firstName, jwtUser.firstName) &&
+                Objects.equals(lastName, jwtUser.lastName) &&
                 username.equals(jwtUser.username) &&
-                password.equals(jwtUser.password) &&
+                Objects.equals(password, jwtUser.password) &&
                 roles.equals(jwtUser.roles);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(firstName, lastName, username, password, roles);
+        return Objects.hash(id, firstName, lastName, username, password, roles);
     }
 }
@@ -0,0 +1,113 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Booking;
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.User;
+import com.foxminded.booking.model.dto.BookingCommandDto;
+import com.foxminded.booking.model.dto.BookingResultDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many bookings at once: tours and users are resolved with one query each, guides are
+ * assigned in a single pass and all bookings are inserted in one batched transaction. Commands for
+ * tours that are fully booked are rejected one by one, the rest of the batch still goes through.
+ * That holds both for the in-memory seat counters and for the booked count that
+ * {@link BookingService#saveAll} takes seats from in the database.
+ */
+@Service
+public class BookingBatchService {
+    private final BookingService bookingService;
+    private final TourService tourService;
+    private final UserService userService;
+    private final GuideAssignmentService guideAssignmentService;
+    private final TourCapacityService tourCapacityService;
+
+    public BookingBatchService(BookingService bookingService, TourService tourService, UserService userService,
+                               GuideAssignmentService guideAssignmentService, TourCapacityService tourCapacityService) {
+        this.bookingService = bookingService;
+        this.tourService = tourService;
+        this.userService = userService;
+        this.guideAssignmentService = guideAssignmentService;
+        this.tourCapacityService = tourCapacityService;
+    }
+
+    /**
+     * Deliberately not {@code @Transactional}: the bookings are inserted in the transaction of
+     * {@link BookingService#saveAll}, which has committed or rolled back by the time it returns.
+     * Only then are the seat reservations confirmed or cancelled and the guides released, the
+     * same way {@code BookingsController} creates a single booking. In one transaction around
+     * this method, reservations would be confirmed before the commit that could still fail.
+     * The lookups before the insert only read and need no shared transaction.
+     */
+    public List<BookingResultDto> createAll(List<BookingCommandDto> commands) {
+        Map<Long, Tour> tours = tourService
+                .findAllById(ids(commands, BookingCommandDto::getTourId))
+                .stream()
+                .collect(Collectors.toMap(Tour::getId, Function.identity()));
+        Map<Long, User> users = userService
+                .findAllById(ids(commands, BookingCommandDto::getUserId))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        BookingResultDto[] results = new BookingResultDto[commands.size()];
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            BookingCommandDto command = commands.get(i);
+            Tour tour = command.getTourId() != null ? tours.get(command.getTourId()) : null;
+            User user = command.getUserId() != null ? users.get(command.getUserId()) : null;
+            if (tour == null) {
+                results[i] = BookingResultDto.failed(i, HttpStatus.NOT_FOUND, "tour not found");
+            } else if (user == null) {
+                results[i] = BookingResultDto.failed(i, HttpStatus.NOT_FOUND, "user not found");
+            } else if (!tourCapacityService.tryReserve(tour.getId())) {
+                results[i] = BookingResultDto.failed(i, HttpStatus.CONFLICT, "tour is fully booked");
+            } else {
+                bookings.add(new Booking(tour, user, null));
+                indexes.add(i);
+            }
+        }
+
+        if (!bookings.isEmpty()) {
+            List<Guide> guides = Collections.emptyList();
+            List<Booking> saved;
+            try {
+                guides = guideAssignmentService.assign(bookings.size());
+                for (int i = 0; i < bookings.size(); i++) {
+                    bookings.get(i).setGuide(guides.get(i));
+                }
+                saved = bookingService.saveAll(bookings);
+            } catch (RuntimeException e) {
+                guides.forEach(guide -> guideAssignmentService.release(guide.getId()));
+                bookings.forEach(booking -> tourCapacityService.cancel(booking.getTour().getId()));
+                throw e;
+            }
+            for (int i = 0; i < saved.size(); i++) {
+                int index = indexes.get(i);
+                Booking booking = bookings.get(i);
+                if (saved.get(i) != null) {
+                    tourCapacityService.confirm(booking.getTour().getId());
+                    results[index] = BookingResultDto.created(index, saved.get(i).toBookingDto());
+                } else {
+                    tourCapacityService.cancel(booking.getTour().getId());
+                    guideAssignmentService.release(booking.getGuide().getId());
+                    results[index] = BookingResultDto.failed(index, HttpStatus.CONFLICT, "tour is fully booked");
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static Set<Long> ids(List<BookingCommandDto> commands, Function<BookingCommandDto, Long> id) {
+        return commands.stream()
+                .map(id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+}
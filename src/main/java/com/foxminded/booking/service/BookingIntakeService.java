@@ -0,0 +1,232 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.dto.BookingCommandDto;
+import com.foxminded.booking.model.dto.BookingResultDto;
+import com.foxminded.booking.model.dto.BookingTicketDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Accepts booking commands into a bounded queue and writes them in the background, so a booking
+ * request only costs the time needed to enqueue it.
+ * <p>
+ * Writer threads take whatever is queued, up to the batch size, and push it through
+ * {@link BookingBatchService}, which resolves, assigns guides and inserts the whole batch at once.
+ * Callers poll the ticket they got back; completed tickets are kept for a limited time. When the
+ * queue is full new bookings are refused instead of piling up in memory.
+ * <p>
+ * Queued bookings were already answered with 202, so on shutdown new bookings are refused and
+ * the writers keep going until the queue is empty or the shutdown timeout runs out. Bookings still
+ * queued after that are marked as failed rather than left pending.
+ */
+@Service
+public class BookingIntakeService {
+    private static final Logger log = LoggerFactory.getLogger(BookingIntakeService.class);
+    private static final long POLL_MILLIS = 500;
+    private static final String WRITE_FAILED = "booking could not be written";
+
+    private final BookingBatchService bookingBatchService;
+    private final boolean enabled;
+    private final int writers;
+    private final int batchSize;
+    private final long ticketTtlNanos;
+    private final long shutdownTimeoutSeconds;
+    private final BlockingQueue<Ticket> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private ExecutorService executor;
+    private volatile boolean stopping;
+
+    public BookingIntakeService(BookingBatchService bookingBatchService,
+                                @Value("${bookings.intake.async:false}") boolean enabled,
+                                @Value("${bookings.intake.queue-capacity:10000}") int queueCapacity,
+                                @Value("${bookings.intake.writers:2}") int writers,
+                                @Value("${bookings.intake.batch-size:100}") int batchSize,
+                                @Value("${bookings.intake.ticket-ttl-seconds:600}") long ticketTtlSeconds,
+                                @Value("${bookings.intake.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.bookingBatchService = bookingBatchService;
+        this.enabled = enabled;
+        this.writers = writers;
+        this.batchSize = batchSize;
+        this.ticketTtlNanos = TimeUnit.SECONDS.toNanos(ticketTtlSeconds);
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || executor != null)
+            return;
+        AtomicInteger number = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "booking-writer-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < writers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // submissions check the flag and enqueue under the read lock, so once it is set nothing
+        // more can be queued
+        stopLock.writeLock().lock();
+        try {
+            stopping = true;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        List<Ticket> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            log.warn("Stopped with {} queued bookings not written", left.size());
+            for (Ticket ticket : left) {
+                ticket.complete(BookingTicketDto.failed(ticket.id, HttpStatus.SERVICE_UNAVAILABLE,
+                        "booking was not written before shutdown"));
+            }
+        }
+    }
+
+    public BookingTicketDto submit(BookingCommandDto command) {
+        stopLock.readLock().lock();
+        try {
+            if (stopping)
+                throw new HttpStatusException("bookings are not accepted while shutting down", HttpStatus.SERVICE_UNAVAILABLE);
+            Ticket ticket = new Ticket(UUID.randomUUID().toString(), command);
+            // a writer can complete the ticket as soon as it is queued
+            BookingTicketDto accepted = ticket.state;
+            tickets.put(ticket.id, ticket);
+            if (!queue.offer(ticket)) {
+                tickets.remove(ticket.id);
+                throw new HttpStatusException("too many bookings in progress, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return accepted;
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ticket if it exists and was issued to the given user, or to anyone when the
+     * user id is {@code null}.
+     */
+    public Optional<BookingTicketDto> findTicket(String id, Long userId) {
+        Ticket ticket = tickets.get(id);
+        if (ticket == null || (userId != null && !Objects.equals(userId, ticket.command.getUserId())))
+            return Optional.empty();
+        return Optional.of(ticket.state);
+    }
+
+    @Scheduled(fixedDelayString = "${bookings.intake.ticket-sweep-interval:60000}")
+    public void evictCompletedTickets() {
+        long now = System.nanoTime();
+        tickets.values().removeIf(ticket -> ticket.completedAt != 0 && now - ticket.completedAt >= ticketTtlNanos);
+    }
+
+    /**
+     * Writes queued bookings until the service is stopping and the queue is empty.
+     */
+    private void drain() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            Ticket first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                // the queue is only final once stopping is seen, check it again after that
+                if (stopping && queue.isEmpty())
+                    return;
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Ticket> batch) {
+        List<BookingCommandDto> commands = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            commands.add(ticket.command);
+        }
+        try {
+            List<BookingResultDto> results = bookingBatchService.createAll(commands);
+            for (int i = 0; i < batch.size(); i++) {
+                Ticket ticket = batch.get(i);
+                ticket.complete(BookingTicketDto.completed(ticket.id, results.get(i)));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} queued bookings", batch.size(), e);
+            HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+            // anything but our own exceptions may carry SQL or internals, tickets only get a generic message
+            String message = WRITE_FAILED;
+            if (e instanceof HttpStatusException && ((HttpStatusException) e).getStatus() != null) {
+                status = ((HttpStatusException) e).getStatus();
+                message = e.getMessage();
+            }
+            for (Ticket ticket : batch) {
+                ticket.complete(BookingTicketDto.failed(ticket.id, status, message));
+            }
+        }
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final BookingCommandDto command;
+        private volatile BookingTicketDto state;
+        private volatile long completedAt;
+
+        private Ticket(String id, BookingCommandDto command) {
+            this.id = id;
+            this.command = command;
+            this.state = BookingTicketDto.accepted(id);
+        }
+
+        private void complete(BookingTicketDto state) {
+            this.state = state;
+            this.completedAt = System.nanoTime();
+        }
+    }
+}
@@ -1,19 +1,41 @@
 package com.foxminded.booking.service;
 
 import com.foxminded.booking.model.Booking;
+import com.foxminded.booking.model.User;
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
 import com.foxminded.booking.repository.BookingRepository;
+import com.foxminded.booking.repository.BookingSpecifications;
+import com.foxminded.booking.repository.TourRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
     private final BookingRepository repository;
+    private final TourRepository tourRepository;
+    private final EntityManager entityManager;
 
-    public BookingService(BookingRepository repository) {
+    public BookingService(BookingRepository repository, TourRepository tourRepository, EntityManager entityManager) {
         this.repository = repository;
+        this.tourRepository = tourRepository;
+        this.entityManager = entityManager;
     }
 
     @Transactional
@@ -36,18 +58,145 @@ public class BookingService {
         return repository.findByGuideId(guideId);
     }
 
+    @Transactional
+    public List<Booking> findByUserIdAndGuideId(Long userId, Long guideId) {
+        return repository.findByUserIdAndGuideId(userId, guideId);
+    }
+
     @Transactional
     public List<Booking> findAll() {
         return repository.findAll();
     }
 
+    @Transactional
+    public List<Booking> findAfterId(Long afterId, int limit) {
+        return repository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    @Transactional
+    public List<Booking> findByGuideIdAfterId(Long guideId, Long afterId, int limit) {
+        return repository.findByGuideIdAndIdGreaterThanOrderByIdAsc(guideId, afterId, PageRequest.of(0, limit));
+    }
+
+    @Transactional
+    public List<Booking> findByUserIdAfterId(Long userId, Long afterId, int limit) {
+        return repository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, PageRequest.of(0, limit));
+    }
+
+    @Transactional
+    public List<Booking> findByUserIdAndGuideIdAfterId(Long userId, Long guideId, Long afterId, int limit) {
+        return repository.findByUserIdAndGuideIdAndIdGreaterThanOrderByIdAsc(userId, guideId, afterId, PageRequest.of(0, limit));
+    }
+
+    @Transactional
+    public List<Booking> search(BookingFilterDto filter, Long afterId, int limit) {
+        return repository.findPage(BookingSpecifications.matching(filter), afterId, limit);
+    }
+
+    /**
+     * Hands every booking to the consumer in id order. Loaded entities are detached each
+     * {@link BookingRepository#EXPORT_FETCH_SIZE} rows, so memory does not grow with the table.
+     */
+    @Transactional
+    public void exportAll(Consumer<Booking> consumer) {
+        try (Stream<Booking> bookings = repository.streamAll()) {
+            Iterator<Booking> iterator = bookings.iterator();
+            for (int count = 1; iterator.hasNext(); count++) {
+                consumer.accept(iterator.next());
+                if (count % BookingRepository.EXPORT_FETCH_SIZE == 0)
+                    entityManager.clear();
+            }
+        }
+    }
+
     @Transactional
     public Booking save(Booking booking) {
         return repository.save(booking);
     }
 
+    /**
+     * Saves the booking for the user with the given id and maps it while the transaction is still
+     * open. The user is referenced without being loaded up front, the id has to come from an
+     * authenticated principal or be checked by the caller. Throws a {@code CONFLICT} status
+     * exception when the tour is fully booked.
+     */
+    @Transactional
+    public BookingDto saveDto(Booking booking, Long userId) {
+        booking.setUser(entityManager.getReference(User.class, userId));
+        if (!takeSeat(tourId(booking)))
+            throw new HttpStatusException("tour is fully booked", HttpStatus.CONFLICT);
+        return repository.save(booking).toBookingDto();
+    }
+
+    /**
+     * Saves an edited booking, moving its seat to the new tour when the tour changed. Throws a
+     * {@code CONFLICT} status exception when the new tour is fully booked. Both tour rows are
+     * updated in id order, so two edits swapping tours cannot deadlock.
+     */
+    @Transactional
+    public Booking update(Booking booking, Long previousTourId) {
+        Long tourId = tourId(booking);
+        if (!Objects.equals(previousTourId, tourId)) {
+            boolean freeFirst = previousTourId != null && (tourId == null || previousTourId < tourId);
+            if (freeFirst)
+                tourRepository.freeSeat(previousTourId);
+            if (!takeSeat(tourId))
+                throw new HttpStatusException("tour is fully booked", HttpStatus.CONFLICT);
+            if (previousTourId != null && !freeFirst)
+                tourRepository.freeSeat(previousTourId);
+        }
+        return repository.save(booking);
+    }
+
+    /**
+     * Saves the bookings whose tour still has a free seat and returns the result in the order
+     * given, with {@code null} in place of each booking rejected because its tour is full. Seats
+     * are taken in tour id order, so concurrent batches lock the tour rows in the same order.
+     */
+    @Transactional
+    public List<Booking> saveAll(List<Booking> bookings) {
+        boolean[] seated = new boolean[bookings.size()];
+        Set<Long> fullTours = new HashSet<>();
+        IntStream.range(0, bookings.size())
+                .boxed()
+                .sorted(Comparator.comparing(i -> tourId(bookings.get(i)), Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(i -> {
+                    Long tourId = tourId(bookings.get(i));
+                    seated[i] = !fullTours.contains(tourId) && takeSeat(tourId);
+                    if (!seated[i])
+                        fullTours.add(tourId);
+                });
+        List<Booking> admitted = new ArrayList<>(bookings.size());
+        for (int i = 0; i < bookings.size(); i++) {
+            if (seated[i])
+                admitted.add(bookings.get(i));
+        }
+        Iterator<Booking> saved = repository.saveAll(admitted).iterator();
+        List<Booking> results = new ArrayList<>(bookings.size());
+        for (boolean seat : seated) {
+            results.add(seat ? saved.next() : null);
+        }
+        return results;
+    }
+
     @Transactional
     public void deleteById(Long id) {
+        Optional<Booking> booking = repository.findById(id);
         repository.deleteById(id);
+        booking.map(BookingService::tourId).ifPresent(tourRepository::freeSeat);
+    }
+
+    /**
+     * Takes the seat with a guarded update of the tour's booked count, which holds the tour row
+     * until the transaction ends. {@link TourCapacityService} admits bookings from its counters
+     * without touching the database, this is what keeps a tour from being overbooked when the
+     * counters drifted or another instance of the application books the same tour.
+     */
+    private boolean takeSeat(Long tourId) {
+        return tourId == null || tourRepository.takeSeat(tourId);
+    }
+
+    private static Long tourId(Booking booking) {
+        return booking.getTour() != null ? booking.getTour().getId() : null;
     }
 }
@@ -0,0 +1,357 @@
+package com.foxminded.booking.service;
+
+import db.migration.V4__Create_id_sequences;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+
+/**
+ * Seeds users, guides, tours and bookings in configurable volumes when the {@code generate}
+ * profile is active. Rows are written once all singletons exist, before the web server starts
+ * taking requests. The same seed always produces the same rows, so load and benchmark runs can
+ * be repeated against identical data.
+ * <p>
+ * Bookings are skewed the way production traffic is: tours and users are drawn from a Zipf
+ * distribution, so a few hot tours and power users own most of the bookings. Which ids are hot is
+ * shuffled with the seed as well. Rows are streamed through {@code COPY} on PostgreSQL and through
+ * batched inserts elsewhere, and new rows are appended after the ids already stored. The booked
+ * count of each tour is set from the generated bookings and sequences are moved past the
+ * generated ids at the end, the in-memory guide, capacity and token version state is loaded
+ * afterwards as usual on startup. With {@code generator.exit} the application stops again once
+ * it has started.
+ */
+@Component
+@Profile("generate")
+public class DataGenerator implements SmartInitializingSingleton, ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DataGenerator.class);
+    private static final String[] FIRST_NAMES = {"Lewis", "Edward", "Mathew", "Hope", "Sophie", "Clare", "Nick", "Claus", "Peter", "Harry"};
+    private static final String[] LAST_NAMES = {"Scott", "Crock", "Allen", "Holder", "McCartney", "Grey", "Stanford", "Bridge", "Norton", "Rose"};
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+    private static final LocalDate FIRST_TOUR_DATE = LocalDate.of(2021, 1, 1);
+    private static final int TOUR_DAYS = 730;
+    private static final int PROGRESS_ROWS = 1_000_000;
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationContext context;
+    private final long seed;
+    private final int users;
+    private final int guides;
+    private final int tours;
+    private final long bookings;
+    private final double tourSkew;
+    private final double userSkew;
+    private final int batchSize;
+    private final boolean exit;
+
+    public DataGenerator(DataSource dataSource, EntityManagerFactory entityManagerFactory, ApplicationContext context,
+                         @Value("${generator.seed:42}") long seed,
+                         @Value("${generator.users:1000}") int users,
+                         @Value("${generator.guides:10}") int guides,
+                         @Value("${generator.tours:200}") int tours,
+                         @Value("${generator.bookings:50000}") long bookings,
+                         @Value("${generator.tour-skew:1.1}") double tourSkew,
+                         @Value("${generator.user-skew:0.9}") double userSkew,
+                         @Value("${generator.batch-size:1000}") int batchSize,
+                         @Value("${generator.exit:false}") boolean exit) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.context = context;
+        this.seed = seed;
+        this.users = users;
+        this.guides = guides;
+        this.tours = tours;
+        this.bookings = bookings;
+        this.tourSkew = tourSkew;
+        this.userSkew = userSkew;
+        this.batchSize = batchSize;
+        this.exit = exit;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long started = System.nanoTime();
+        try {
+            generate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("could not generate data", e);
+        }
+        // rows were written past Hibernate, nothing cached before may survive
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        log.info("generated {} users, {} guides, {} tours and {} bookings in {} s",
+                users, guides, tours, bookings, (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (exit)
+            System.exit(SpringApplication.exit(context));
+    }
+
+    void generate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            generate(connection);
+        }
+    }
+
+    private void generate(Connection connection) throws SQLException {
+        long roleId = roleId(connection, ROLE_USER);
+        long firstUser = maxId(connection, "users") + 1;
+        long firstGuide = maxId(connection, "guides") + 1;
+        long firstTour = maxId(connection, "tours") + 1;
+        long firstBooking = maxId(connection, "bookings") + 1;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        try (RowWriter writer = writer(connection, "users", "id", "first_name", "last_name", "username", "password", "role_id", "token_version")) {
+            for (int i = 0; i < users; i++) {
+                long id = firstUser + i;
+                writer.write(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                        "user" + id, "user", roleId, 0);
+            }
+        }
+        try (RowWriter writer = writer(connection, "guides", "id", "name")) {
+            for (int i = 0; i < guides; i++) {
+                long id = firstGuide + i;
+                writer.write(id, "Guide " + id);
+            }
+        }
+        try (RowWriter writer = writer(connection, "tours", "id", "price", "difficulty", "start", "finish", "capacity")) {
+            for (int i = 0; i < tours; i++) {
+                LocalDate start = FIRST_TOUR_DATE.plusDays(random.nextInt(TOUR_DAYS));
+                writer.write(firstTour + i, 1 + random.nextInt(500), DIFFICULTIES[random.nextInt(DIFFICULTIES.length)],
+                        start, start.plusDays(1 + random.nextInt(14)), null);
+            }
+        }
+        connection.commit();
+
+        if (bookings > 0 && tours > 0 && users > 0 && guides > 0) {
+            SkewedSampler hotTours = new SkewedSampler(tours, tourSkew, random.split());
+            SkewedSampler powerUsers = new SkewedSampler(users, userSkew, random.split());
+            int[] booked = new int[tours];
+            try (RowWriter writer = writer(connection, "bookings", "id", "tour_id", "user_id", "guide_id")) {
+                for (long i = 0; i < bookings; i++) {
+                    int tour = hotTours.next();
+                    booked[tour]++;
+                    writer.write(firstBooking + i, firstTour + tour, firstUser + powerUsers.next(),
+                            firstGuide + random.nextInt(guides));
+                    if ((i + 1) % PROGRESS_ROWS == 0)
+                        log.info("generated {} of {} bookings", i + 1, bookings);
+                }
+            }
+            updateBooked(connection, firstTour, booked);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("update tour_catalog_version set version = version + 1");
+            }
+            connection.commit();
+        }
+
+        for (String table : new String[]{"users", "guides", "tours", "bookings"}) {
+            restartSequence(connection, table);
+        }
+        connection.commit();
+    }
+
+    private RowWriter writer(Connection connection, String table, String... columns) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class))
+            return new CopyWriter(connection.unwrap(PGConnection.class), table, columns);
+        return new BatchWriter(connection, table, columns, batchSize);
+    }
+
+    private static long roleId(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select id from roles where name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next())
+                    throw new IllegalStateException("role " + name + " does not exist");
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void updateBooked(Connection connection, long firstTour, int[] booked) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("update tours set booked = ? where id = ?")) {
+            int pending = 0;
+            for (int i = 0; i < booked.length; i++) {
+                if (booked[i] == 0)
+                    continue;
+                statement.setInt(1, booked[i]);
+                statement.setLong(2, firstTour + i);
+                statement.addBatch();
+                if (++pending % batchSize == 0)
+                    statement.executeBatch();
+            }
+            if (pending % batchSize != 0)
+                statement.executeBatch();
+        }
+    }
+
+    private static void restartSequence(Connection connection, String table) throws SQLException {
+        long start = maxId(connection, table) + V4__Create_id_sequences.ALLOCATION_SIZE;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter sequence " + table + "_seq restart with " + start);
+        }
+    }
+
+    /**
+     * Draws ranks from a Zipf distribution over {@code size} items and maps them onto a seeded
+     * permutation, so rank 0 is the hottest item but not necessarily the one with the lowest id.
+     */
+    static final class SkewedSampler {
+        private final double[] cumulative;
+        private final int[] items;
+        private final SplittableRandom random;
+
+        SkewedSampler(int size, double skew, SplittableRandom random) {
+            this.random = random;
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+            items = new int[size];
+            for (int i = 0; i < size; i++) {
+                items[i] = i;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int item = items[i];
+                items[i] = items[j];
+                items[j] = item;
+            }
+        }
+
+        /**
+         * Returns an item index between 0 inclusive and the size exclusive.
+         */
+        int next() {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < target)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return items[low];
+        }
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void write(Object... values) throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    /**
+     * Streams rows as CSV into a single {@code COPY ... FROM STDIN}.
+     */
+    private static final class CopyWriter implements RowWriter {
+        private final CopyIn copyIn;
+        private final StringBuilder line = new StringBuilder();
+
+        private CopyWriter(PGConnection connection, String table, String[] columns) throws SQLException {
+            copyIn = connection.getCopyAPI().copyIn(
+                    "copy " + table + " (" + String.join(", ", columns) + ") from stdin with (format csv)");
+        }
+
+        @Override
+        public void write(Object... values) throws SQLException {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    line.append(',');
+                if (values[i] != null)
+                    line.append(values[i]);
+            }
+            line.append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            copyIn.endCopy();
+        }
+    }
+
+    /**
+     * Inserts rows through one prepared statement, executing and committing every batch.
+     */
+    private static final class BatchWriter implements RowWriter {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final int batchSize;
+        private int pending;
+
+        private BatchWriter(Connection connection, String table, String[] columns, int batchSize) throws SQLException {
+            this.connection = connection;
+            this.batchSize = batchSize;
+            String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+            statement = connection.prepareStatement(
+                    "insert into " + table + " (" + String.join(", ", columns) + ") values (" + placeholders + ")");
+        }
+
+        @Override
+        public void write(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending == batchSize)
+                flush();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pending > 0)
+                    flush();
+            } finally {
+                statement.close();
+            }
+        }
+
+        private void flush() throws SQLException {
+            statement.executeBatch();
+            connection.commit();
+            pending = 0;
+        }
+    }
+}
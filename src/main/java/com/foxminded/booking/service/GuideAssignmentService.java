@@ -0,0 +1,127 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.repository.GuideRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Assigns guides to new bookings without reading the guides table.
+ * <p>
+ * Keeps every guide ordered by its current bookings count, so picking the least loaded
+ * guide and updating its load are O(log n). The index is built once on startup and then
+ * kept in sync by booking and guide writes.
+ */
+@Service
+public class GuideAssignmentService {
+    private final GuideRepository repository;
+    private final NavigableSet<GuideLoad> loads = new TreeSet<>();
+    private final Map<Long, GuideLoad> loadsByGuideId = new HashMap<>();
+
+    public GuideAssignmentService(GuideRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Object[]> rows = repository.findAllWithBookingsCount();
+        synchronized (this) {
+            loads.clear();
+            loadsByGuideId.clear();
+            for (Object[] row : rows) {
+                put(new GuideLoad((Long) row[0], (String) row[1], ((Number) row[2]).longValue()));
+            }
+        }
+    }
+
+    public synchronized Guide assign() {
+        GuideLoad least = loads.pollFirst();
+        if (least == null)
+            throw new NotFoundException("guide not found", HttpStatus.NOT_FOUND);
+        put(least.withBookings(least.bookings + 1));
+        return least.toGuide();
+    }
+
+    public synchronized List<Guide> assign(int count) {
+        List<Guide> guides = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            guides.add(assign());
+        }
+        return guides;
+    }
+
+    public synchronized void acquire(Long guideId) {
+        GuideLoad load = loadsByGuideId.get(guideId);
+        if (load != null) {
+            loads.remove(load);
+            put(load.withBookings(load.bookings + 1));
+        }
+    }
+
+    public synchronized void release(Long guideId) {
+        GuideLoad load = loadsByGuideId.get(guideId);
+        if (load != null && load.bookings > 0) {
+            loads.remove(load);
+            put(load.withBookings(load.bookings - 1));
+        }
+    }
+
+    public synchronized void register(Guide guide) {
+        if (guide.getId() == null)
+            return;
+        GuideLoad load = loadsByGuideId.get(guide.getId());
+        if (load != null) {
+            loads.remove(load);
+            put(new GuideLoad(load.guideId, guide.getName(), load.bookings));
+        } else {
+            put(new GuideLoad(guide.getId(), guide.getName(), 0));
+        }
+    }
+
+    public synchronized void unregister(Long guideId) {
+        GuideLoad load = loadsByGuideId.remove(guideId);
+        if (load != null)
+            loads.remove(load);
+    }
+
+    private void put(GuideLoad load) {
+        loads.add(load);
+        loadsByGuideId.put(load.guideId, load);
+    }
+
+    private static final class GuideLoad implements Comparable<GuideLoad> {
+        private final Long guideId;
+        private final String name;
+        private final long bookings;
+
+        private GuideLoad(Long guideId, String name, long bookings) {
+            this.guideId = guideId;
+            this.name = name;
+            this.bookings = bookings;
+        }
+
+        private GuideLoad withBookings(long bookings) {
+            return new GuideLoad(guideId, name, bookings);
+        }
+
+        private Guide toGuide() {
+            return new Guide(guideId, name);
+        }
+
+        @Override
+        public int compareTo(GuideLoad o) {
+            int result = Long.compare(bookings, o.bookings);
+            return result != 0 ? result : guideId.compareTo(o.guideId);
+        }
+    }
+}
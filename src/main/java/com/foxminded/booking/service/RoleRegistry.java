@@ -0,0 +1,91 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.repository.RoleRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves role names to ids and granted authorities from memory. Roles are read once all
+ * singletons exist, before the web server starts taking requests, afterwards
+ * {@link RoleService} applies every committed role write to the registry. Roles without a name
+ * cannot be looked up and are left out.
+ * <p>
+ * Lookups hand out fresh {@link Role} instances carrying only id and name, good enough to
+ * reference the role from a new user. Authority lists are built once per role and shared.
+ */
+@Service
+public class RoleRegistry implements SmartInitializingSingleton {
+    private final RoleRepository repository;
+    private volatile Map<String, Entry> rolesByName = Collections.emptyMap();
+
+    public RoleRegistry(RoleRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public synchronized void reload() {
+        Map<String, Entry> loaded = new HashMap<>();
+        for (Role role : repository.findAll()) {
+            if (role.getName() != null)
+                loaded.put(role.getName(), new Entry(role.getId(), role.getName()));
+        }
+        rolesByName = loaded;
+    }
+
+    public synchronized void put(Role role) {
+        Map<String, Entry> updated = new HashMap<>(rolesByName);
+        updated.values().removeIf(entry -> entry.id.equals(role.getId()));
+        if (role.getName() != null)
+            updated.put(role.getName(), new Entry(role.getId(), role.getName()));
+        rolesByName = updated;
+    }
+
+    public synchronized void remove(Long id) {
+        Map<String, Entry> updated = new HashMap<>(rolesByName);
+        updated.values().removeIf(entry -> entry.id.equals(id));
+        rolesByName = updated;
+    }
+
+    public Optional<Role> findByName(String name) {
+        Entry entry = name != null ? rolesByName.get(name) : null;
+        return entry != null ? Optional.of(new Role(entry.id, entry.name)) : Optional.empty();
+    }
+
+    /**
+     * Authorities of a user with the given role. Names the registry does not know, such as a role
+     * created on another instance, still get a list of their own, a missing name gets none.
+     */
+    public List<GrantedAuthority> authorities(String name) {
+        if (name == null)
+            return Collections.emptyList();
+        Entry entry = rolesByName.get(name);
+        if (entry != null)
+            return entry.authorities;
+        return Collections.singletonList(new SimpleGrantedAuthority(name));
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final String name;
+        private final List<GrantedAuthority> authorities;
+
+        private Entry(Long id, String name) {
+            this.id = id;
+            this.name = name;
+            this.authorities = Collections.singletonList(new SimpleGrantedAuthority(name));
+        }
+    }
+}
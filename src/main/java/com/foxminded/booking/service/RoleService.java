@@ -2,6 +2,7 @@ package com.foxminded.booking.service;
 
 import com.foxminded.booking.model.Role;
 import com.foxminded.booking.repository.RoleRepository;
+import com.foxminded.booking.utils.TransactionUtils;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
@@ -11,9 +12,11 @@ import java.util.Optional;
 @Service
 public class RoleService {
     private final RoleRepository repository;
+    private final RoleRegistry roleRegistry;
 
-    public RoleService(RoleRepository repository) {
+    public RoleService(RoleRepository repository, RoleRegistry roleRegistry) {
         this.repository = repository;
+        this.roleRegistry = roleRegistry;
     }
 
     @Transactional
@@ -33,11 +36,17 @@ public class RoleService {
 
     @Transactional
     public Role save(Role role) {
-        return repository.save(role);
+        Role saved = repository.save(role);
+        if (saved != null) {
+            Role registered = new Role(saved.getId(), saved.getName());
+            TransactionUtils.afterCommit(() -> roleRegistry.put(registered));
+        }
+        return saved;
     }
 
     @Transactional
     public void deleteById(Long id) {
         repository.deleteById(id);
+        TransactionUtils.afterCommit(() -> roleRegistry.remove(id));
     }
 }
@@ -0,0 +1,96 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.repository.UserRepository;
+import com.foxminded.booking.utils.TransactionUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the token version of every user. Tokens carry the version they were issued with,
+ * so bumping it revokes all tokens of the user without looking users up per request.
+ * <p>
+ * Only users with a non-zero version are kept in memory; the users table stays the source
+ * of truth. Deleted users are recorded in the revoked_users table, so their tokens stay revoked
+ * after a restart although the user row is gone. Versions only ever grow, so memory is merged
+ * with the tables on a schedule to pick up revocations made by other instances, and a token newer
+ * than memory is checked against the users table before it is rejected.
+ */
+@Service
+public class TokenVersionService {
+    private static final int REVOKED = -1;
+
+    private final UserRepository repository;
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionService(UserRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jwt.token-version.reload-interval:30000}",
+            fixedDelayString = "${jwt.token-version.reload-interval:30000}")
+    public void reload() {
+        List<Object[]> rows = repository.findTokenVersions();
+        List<Number> revoked = repository.findRevokedUserIds();
+        merge(rows);
+        for (Number userId : revoked) {
+            versions.put(userId.longValue(), REVOKED);
+        }
+    }
+
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    public boolean isCurrent(Long userId, int version) {
+        int current = currentVersion(userId);
+        if (current == version)
+            return true;
+        if (current == REVOKED || version < current)
+            return false;
+        Optional<Number> stored = repository.findTokenVersion(userId);
+        stored.ifPresent(number -> merge(userId, number.intValue()));
+        return stored.isPresent() && stored.get().intValue() == version;
+    }
+
+    @Transactional
+    public void revoke(Long userId) {
+        repository.incrementTokenVersion(userId);
+        repository.findTokenVersion(userId)
+                .ifPresent(number -> TransactionUtils.afterCommit(() -> merge(userId, number.intValue())));
+    }
+
+    /**
+     * Revokes the tokens of every user with the role, whose name the tokens carry.
+     */
+    @Transactional
+    public void revokeRole(Long roleId) {
+        repository.incrementRoleTokenVersions(roleId);
+        List<Object[]> rows = repository.findTokenVersionsByRoleId(roleId);
+        TransactionUtils.afterCommit(() -> merge(rows));
+    }
+
+    @Transactional
+    public void revokeDeleted(Long userId) {
+        repository.insertRevokedUser(userId);
+        TransactionUtils.afterCommit(() -> versions.put(userId, REVOKED));
+    }
+
+    private void merge(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            merge(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+    }
+
+    private void merge(Long userId, int version) {
+        versions.merge(userId, version, (current, stored) -> current == REVOKED ? REVOKED : Math.max(current, stored));
+    }
+}
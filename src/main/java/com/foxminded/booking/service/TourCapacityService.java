@@ -0,0 +1,183 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.exception.HttpStatusException;
+import com.foxminded.booking.repository.TourRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits or rejects bookings against tour capacity without touching the tours table.
+ * <p>
+ * Every tour with a capacity has its own counter of reserved seats, taken with a compare-and-set,
+ * so bookings of different tours never contend and bookings of the same tour never block.
+ * A reservation stays pending until the caller confirms it once the booking is committed or
+ * cancels it when saving fails. The booked count of the tours table stays the source of truth:
+ * counters are rebuilt from it on startup and reconciled on a schedule, and
+ * {@link BookingService} takes every seat there with a guarded update before a booking commits.
+ * Tours without a capacity are not tracked and always admit.
+ * <p>
+ * Reconciling never overwrites a counter. It takes the reserved and pending counts before
+ * reading the booked counts, then shifts the counter by the difference between the bookings plus
+ * that pending count and the reserved count. Reservations and frees made while the query runs
+ * therefore stay in the counter, and a reservation confirmed in the meantime is counted either
+ * as a booking or as pending. A reservation raises the pending count before it takes a seat and
+ * a cancellation frees the seat before lowering it, so any error leaves the counter too high,
+ * which rejects a booking rather than overbooking the tour.
+ */
+@Service
+public class TourCapacityService {
+    private final TourRepository repository;
+    private final Map<Long, Seats> seats = new ConcurrentHashMap<>();
+
+    public TourCapacityService(TourRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${tours.capacity.reconcile-interval:60000}",
+            fixedDelayString = "${tours.capacity.reconcile-interval:60000}")
+    public synchronized void reload() {
+        Map<Long, Snapshot> snapshots = new HashMap<>();
+        seats.forEach((tourId, tourSeats) -> snapshots.put(tourId, tourSeats.snapshot()));
+        List<Object[]> rows = repository.findCapacitiesWithBooked();
+        Set<Long> tracked = new HashSet<>();
+        for (Object[] row : rows) {
+            Long tourId = ((Number) row[0]).longValue();
+            int capacity = ((Number) row[1]).intValue();
+            int booked = ((Number) row[2]).intValue();
+            Snapshot snapshot = snapshots.get(tourId);
+            seats.compute(tourId, (id, current) -> current == null
+                    ? new Seats(capacity, booked)
+                    : current.reconcile(capacity, booked, snapshot));
+            tracked.add(tourId);
+        }
+        snapshots.forEach((tourId, snapshot) -> {
+            if (!tracked.contains(tourId))
+                seats.remove(tourId, snapshot.seats);
+        });
+    }
+
+    /**
+     * Reserves a seat on the tour or throws a {@code CONFLICT} status exception when it is full.
+     */
+    public void reserve(Long tourId) {
+        if (!tryReserve(tourId))
+            throw new HttpStatusException("tour is fully booked", HttpStatus.CONFLICT);
+    }
+
+    public boolean tryReserve(Long tourId) {
+        Seats tourSeats = tourId != null ? seats.get(tourId) : null;
+        return tourSeats == null || tourSeats.tryReserve();
+    }
+
+    public void confirm(Long tourId) {
+        Seats tourSeats = tourId != null ? seats.get(tourId) : null;
+        if (tourSeats != null)
+            tourSeats.pending.decrementAndGet();
+    }
+
+    public void cancel(Long tourId) {
+        Seats tourSeats = tourId != null ? seats.get(tourId) : null;
+        if (tourSeats != null) {
+            tourSeats.free();
+            tourSeats.pending.decrementAndGet();
+        }
+    }
+
+    public void release(Long tourId) {
+        Seats tourSeats = tourId != null ? seats.get(tourId) : null;
+        if (tourSeats != null)
+            tourSeats.free();
+    }
+
+    public void register(Tour tour) {
+        if (tour.getId() == null)
+            return;
+        if (tour.getCapacity() == null) {
+            seats.remove(tour.getId());
+            return;
+        }
+        int capacity = tour.getCapacity();
+        Seats current = seats.get(tour.getId());
+        if (current != null) {
+            current.capacity = capacity;
+        } else {
+            seats.putIfAbsent(tour.getId(), new Seats(capacity, repository.findBooked(tour.getId())));
+        }
+    }
+
+    public void unregister(Long tourId) {
+        seats.remove(tourId);
+    }
+
+    private static final class Seats {
+        private volatile int capacity;
+        private final AtomicInteger reserved;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Seats(int capacity, int reserved) {
+            this.capacity = capacity;
+            this.reserved = new AtomicInteger(reserved);
+        }
+
+        private boolean tryReserve() {
+            pending.incrementAndGet();
+            while (true) {
+                int current = reserved.get();
+                if (current >= capacity) {
+                    pending.decrementAndGet();
+                    return false;
+                }
+                if (reserved.compareAndSet(current, current + 1))
+                    return true;
+            }
+        }
+
+        private void free() {
+            reserved.updateAndGet(current -> current > 0 ? current - 1 : 0);
+        }
+
+        private Snapshot snapshot() {
+            // reserved before pending: a reservation taken in between shows up as pending only
+            int reservedBefore = reserved.get();
+            return new Snapshot(this, reservedBefore, pending.get());
+        }
+
+        /**
+         * Applies the booked count read after the snapshot was taken. A tour without a snapshot
+         * of this counter was registered while reading, its counter is already current.
+         */
+        private Seats reconcile(int capacity, int booked, Snapshot snapshot) {
+            this.capacity = capacity;
+            if (snapshot != null && snapshot.seats == this) {
+                int delta = booked + Math.max(snapshot.pending, 0) - snapshot.reserved;
+                reserved.updateAndGet(current -> Math.max(current + delta, 0));
+            }
+            return this;
+        }
+    }
+
+    private static final class Snapshot {
+        private final Seats seats;
+        private final int reserved;
+        private final int pending;
+
+        private Snapshot(Seats seats, int reserved, int pending) {
+            this.seats = seats;
+            this.reserved = reserved;
+            this.pending = pending;
+        }
+    }
+}
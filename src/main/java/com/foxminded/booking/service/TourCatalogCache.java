@@ -0,0 +1,136 @@
+package com.foxminded.booking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.TourDto;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current tour catalog, already mapped and serialized, together with a version that
+ * {@link TourService} bumps after every committed tour write. Tour writes also bump the version
+ * stored in the tour_catalog_version table, which {@link TourService} polls to drop catalogs
+ * gone stale through writes on other instances.
+ * <p>
+ * ETags are derived from the version alone, so a conditional GET of the catalog is answered
+ * without touching the database or the catalog. A single tour is still looked up, so that an
+ * unknown id gets a 404 rather than a 304. ETags also carry a nonce picked on startup, so an
+ * ETag handed out before a restart never matches a catalog loaded after it.
+ */
+@Component
+public class TourCatalogCache {
+    private final ObjectMapper mapper;
+    private final String nonce = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong storedVersion = new AtomicLong(-1);
+    private volatile Catalog catalog;
+
+    public TourCatalogCache(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public String eTag() {
+        return eTagOf(version.get(), null);
+    }
+
+    public String eTag(Long tourId) {
+        return eTagOf(version.get(), tourId);
+    }
+
+    /**
+     * Returns the catalog of the current version or {@code null} when it has to be loaded.
+     */
+    public Catalog get() {
+        Catalog current = catalog;
+        return current != null && current.version == version.get() ? current : null;
+    }
+
+    /**
+     * Builds the catalog out of tours read while the cache was at the given version. It is only
+     * kept when no tour was written in the meantime, otherwise it serves the current caller only.
+     */
+    public Catalog put(long loadedVersion, List<Tour> tours) {
+        Catalog loaded = new Catalog(loadedVersion, tours);
+        if (version.get() == loadedVersion)
+            catalog = loaded;
+        return loaded;
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        catalog = null;
+    }
+
+    /**
+     * Invalidates the catalog after a local write that moved the stored version to the given one.
+     */
+    public void invalidate(long stored) {
+        storedVersion.accumulateAndGet(stored, Math::max);
+        invalidate();
+    }
+
+    /**
+     * Invalidates the catalog when the stored version moved past the last one seen.
+     */
+    public void sync(long stored) {
+        if (storedVersion.getAndAccumulate(stored, Math::max) < stored)
+            invalidate();
+    }
+
+    private String eTagOf(long version, Long tourId) {
+        return "\"" + nonce + "-" + version + (tourId != null ? "-" + tourId : "") + "\"";
+    }
+
+    public final class Catalog {
+        private final long version;
+        private final Map<Long, TourDto> tours;
+        private final byte[] json;
+
+        private Catalog(long version, List<Tour> tours) {
+            this.version = version;
+            Map<Long, TourDto> dtos = new LinkedHashMap<>();
+            for (Tour tour : tours) {
+                dtos.put(tour.getId(), tour.toTourDto());
+            }
+            this.tours = Collections.unmodifiableMap(dtos);
+            try {
+                this.json = mapper.writeValueAsBytes(new ArrayList<>(dtos.values()));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getETag() {
+            return eTagOf(version, null);
+        }
+
+        public String getETag(Long tourId) {
+            return eTagOf(version, tourId);
+        }
+
+        public TourDto getTour(Long tourId) {
+            return tours.get(tourId);
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+    }
+}
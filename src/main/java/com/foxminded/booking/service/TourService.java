@@ -1,7 +1,14 @@
 package com.foxminded.booking.service;
 
 import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.model.dto.TourFilterDto;
 import com.foxminded.booking.repository.TourRepository;
+import com.foxminded.booking.repository.TourSpecifications;
+import com.foxminded.booking.utils.TransactionUtils;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
@@ -11,9 +18,11 @@ import java.util.Optional;
 @Service
 public class TourService {
     private final TourRepository repository;
+    private final TourCatalogCache catalogCache;
 
-    public TourService(TourRepository repository) {
+    public TourService(TourRepository repository, TourCatalogCache catalogCache) {
         this.repository = repository;
+        this.catalogCache = catalogCache;
     }
 
     @Transactional
@@ -26,13 +35,62 @@ public class TourService {
         return repository.findAll();
     }
 
+    @Transactional
+    public TourCatalogCache.Catalog catalog() {
+        TourCatalogCache.Catalog catalog = catalogCache.get();
+        if (catalog != null)
+            return catalog;
+        long version = catalogCache.version();
+        return catalogCache.put(version, repository.findAll());
+    }
+
+    /**
+     * Takes the tour from the catalog when it is loaded and reads only this tour otherwise, a
+     * single tour is not worth building the whole catalog for.
+     */
+    @Transactional
+    public Optional<TourDto> findDtoById(Long id) {
+        TourCatalogCache.Catalog catalog = catalogCache.get();
+        if (catalog != null)
+            return Optional.ofNullable(catalog.getTour(id));
+        return repository.findById(id).map(Tour::toTourDto);
+    }
+
+    @Transactional
+    public List<Tour> findAllById(Iterable<Long> ids) {
+        return repository.findAllById(ids);
+    }
+
+    @Transactional
+    public Slice<Tour> search(TourFilterDto filter, Pageable pageable) {
+        return repository.findSlice(TourSpecifications.matching(filter), pageable);
+    }
+
     @Transactional
     public Tour save(Tour tour) {
-        return repository.save(tour);
+        Tour saved = repository.save(tour);
+        invalidateCatalog();
+        return saved;
     }
 
     @Transactional
     public void deleteById(Long id) {
         repository.deleteById(id);
+        invalidateCatalog();
+    }
+
+    /**
+     * Invalidates the catalog when another instance wrote tours since the last check.
+     */
+    @Scheduled(initialDelayString = "${tours.catalog.sync-interval:5000}",
+            fixedDelayString = "${tours.catalog.sync-interval:5000}")
+    public void syncCatalog() {
+        catalogCache.sync(repository.findCatalogVersion());
+    }
+
+    private void invalidateCatalog() {
+        repository.incrementCatalogVersion();
+        long stored = repository.findCatalogVersion();
+        TransactionUtils.afterCommit(() -> catalogCache.invalidate(stored));
     }
 }
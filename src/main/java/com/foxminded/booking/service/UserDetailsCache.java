@@ -0,0 +1,141 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.dto.CacheStatsDto;
+import com.foxminded.booking.security.jwt.JwtUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of loaded principals keyed by username. Entries expire after a fixed time
+ * and are dropped by {@link UserService} whenever the user is saved or deleted.
+ * <p>
+ * Usernames are also indexed by user id, so a user is dropped by id without scanning the
+ * cache. Entries are queued in the order they were put, which is their expiry order, and a
+ * full cache evicts from the head of that queue.
+ */
+@Component
+public class UserDetailsCache {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, String> usernames = new ConcurrentHashMap<>();
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    public UserDetailsCache(@Value("${cache.user-details.max-size:10000}") int maxSize,
+                            @Value("${cache.user-details.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public JwtUser get(String username) {
+        Entry entry = username != null ? entries.get(username) : null;
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            if (remove(entry))
+                evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.user;
+    }
+
+    public void put(JwtUser user) {
+        if (maxSize <= 0)
+            return;
+        long now = System.nanoTime();
+        evict(now);
+        Entry entry = new Entry(user, now + ttlNanos);
+        Entry previous = entries.put(user.getUsername(), entry);
+        if (previous != null && previous.user.getId() != null)
+            usernames.remove(previous.user.getId(), previous.user.getUsername());
+        if (user.getId() != null) {
+            String renamed = usernames.put(user.getId(), user.getUsername());
+            if (renamed != null && !renamed.equals(user.getUsername()))
+                invalidate(renamed);
+        }
+        order.add(entry);
+    }
+
+    public void invalidate(String username) {
+        Entry entry = username != null ? entries.get(username) : null;
+        if (entry != null)
+            remove(entry);
+    }
+
+    public void invalidate(Long userId) {
+        String username = userId != null ? usernames.get(userId) : null;
+        if (username != null) {
+            invalidate(username);
+            usernames.remove(userId, username);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        usernames.clear();
+        order.clear();
+    }
+
+    public CacheStatsDto stats() {
+        CacheStatsDto dto = new CacheStatsDto();
+        dto.setSize(entries.size());
+        dto.setMaxSize(maxSize);
+        dto.setHits(hits.sum());
+        dto.setMisses(misses.sum());
+        dto.setEvictions(evictions.sum());
+        return dto;
+    }
+
+    /**
+     * Drops entries from the head of the put order while they are expired, replaced or
+     * invalidated, or while the cache is full.
+     */
+    private void evict(long now) {
+        while (true) {
+            Entry head = order.peek();
+            if (head == null)
+                return;
+            boolean current = entries.get(head.user.getUsername()) == head;
+            if (current && !head.isExpired(now) && entries.size() < maxSize)
+                return;
+            if (order.remove(head) && current && remove(head))
+                evictions.increment();
+        }
+    }
+
+    private boolean remove(Entry entry) {
+        if (!entries.remove(entry.user.getUsername(), entry))
+            return false;
+        if (entry.user.getId() != null)
+            usernames.remove(entry.user.getId(), entry.user.getUsername());
+        return true;
+    }
+
+    private static final class Entry {
+        private final JwtUser user;
+        private final long expiresAt;
+
+        private Entry(JwtUser user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
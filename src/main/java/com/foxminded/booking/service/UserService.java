@@ -3,23 +3,26 @@ package com.foxminded.booking.service;
 import com.foxminded.booking.model.User;
 import com.foxminded.booking.repository.UserRepository;
 import com.foxminded.booking.security.jwt.JwtUser;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.foxminded.booking.utils.TransactionUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UserService implements UserDetailsService {
     private final UserRepository repository;
+    private final UserDetailsCache userDetailsCache;
+    private final RoleRegistry roleRegistry;
 
-    public UserService(UserRepository repository) {
+    public UserService(UserRepository repository, UserDetailsCache userDetailsCache, RoleRegistry roleRegistry) {
         this.repository = repository;
+        this.userDetailsCache = userDetailsCache;
+        this.roleRegistry = roleRegistry;
     }
 
     @Transactional
@@ -37,30 +40,47 @@ public class UserService implements UserDetailsService {
         return repository.findAll();
     }
 
+    @Transactional
+    public List<User> findAllById(Iterable<Long> ids) {
+        return repository.findAllById(ids);
+    }
+
     @Transactional
     public User save(User user) {
-        return repository.save(user);
+        User saved = repository.save(user);
+        Long id = saved != null ? saved.getId() : user.getId();
+        String username = user.getUsername();
+        TransactionUtils.afterCommit(() -> {
+            userDetailsCache.invalidate(id);
+            userDetailsCache.invalidate(username);
+        });
+        return saved;
     }
 
     @Transactional
     public void deleteById(Long id) {
         repository.deleteById(id);
+        TransactionUtils.afterCommit(() -> userDetailsCache.invalidate(id));
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        JwtUser cached = userDetailsCache.get(username);
+        if (cached != null)
+            return cached;
         Optional<User> user = findByUsername(username);
-        if (user.isPresent())
-            return new JwtUser(
+        if (user.isPresent()) {
+            JwtUser jwtUser = new JwtUser(
+                    user.get().getId(),
                     user.get().getFirstName(),
                     user.get().getLastName(),
                     user.get().getUsername(),
                     user.get().getPassword(),
-                    new ArrayList<SimpleGrantedAuthority>() {{
-                        add(new SimpleGrantedAuthority(user.get().getRole().getName()));
-                    }}
+                    roleRegistry.authorities(user.get().getRole().getName())
             );
-        else
+            userDetailsCache.put(jwtUser);
+            return jwtUser;
+        } else
             throw new UsernameNotFoundException(String.format("User with '%s' username not found", username));
     }
 }
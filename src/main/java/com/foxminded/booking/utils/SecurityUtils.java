@@ -1,18 +1,25 @@
 package com.foxminded.booking.utils;
 
+import com.foxminded.booking.security.RoleMask;
+import com.foxminded.booking.security.jwt.JwtUser;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 public class SecurityUtils {
 
-    public static boolean userHasRole(String adminRole) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            return authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
-        } catch (Exception e) {
-            return false;
-        }
+    public static boolean userHasRole(String role) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (RoleMask.of(authentication) & RoleMask.of(role)) != 0;
+    }
+
+    /**
+     * Id carried by the {@link JwtUser} principal, {@code null} for any other principal.
+     */
+    public static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtUser)
+            return ((JwtUser) authentication.getPrincipal()).getId();
+        return null;
     }
 
     public static String currentUserName() {
@@ -0,0 +1,42 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Moves id generation from serial columns to sequences that hand out blocks of
+ * {@link #ALLOCATION_SIZE} ids, so Hibernate can assign ids in memory and batch inserts.
+ * <p>
+ * Written in Java because the start of each sequence depends on the rows already stored and
+ * neither H2 nor PostgreSQL accept a subquery there.
+ */
+public class V4__Create_id_sequences extends BaseJavaMigration {
+    public static final int ALLOCATION_SIZE = 50;
+    private static final String[] TABLES = {"roles", "users", "guides", "tours", "bookings"};
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+            long start = maxId(connection, table) + ALLOCATION_SIZE;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create sequence " + sequence + " start with " + start + " increment by " + ALLOCATION_SIZE);
+                statement.execute("alter table " + table + " alter column id set default nextval('" + sequence + "')");
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
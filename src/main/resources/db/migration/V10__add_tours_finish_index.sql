@@ -0,0 +1 @@
+create index tours_finish_idx on tours (finish, id);
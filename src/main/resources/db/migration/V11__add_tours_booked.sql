@@ -0,0 +1,2 @@
+alter table tours add column booked integer not null default 0;
+update tours set booked = (select count(*) from bookings where bookings.tour_id = tours.id);
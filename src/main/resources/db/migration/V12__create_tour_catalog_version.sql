@@ -0,0 +1,4 @@
+create table tour_catalog_version (
+    version bigint not null
+);
+insert into tour_catalog_version (version) values (0);
@@ -0,0 +1 @@
+alter table tours add column capacity integer;
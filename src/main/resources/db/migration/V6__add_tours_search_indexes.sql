@@ -0,0 +1,4 @@
+create index tours_difficulty_price_idx on tours (difficulty, price, id);
+create index tours_difficulty_start_idx on tours (difficulty, start, id);
+create index tours_price_idx on tours (price, id);
+create index tours_start_finish_idx on tours (start, finish, id);
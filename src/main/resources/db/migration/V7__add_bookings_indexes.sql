@@ -0,0 +1,4 @@
+create index bookings_tour_id_idx on bookings (tour_id, id);
+create index bookings_user_id_idx on bookings (user_id, id);
+create index bookings_user_guide_idx on bookings (user_id, guide_id, id);
+create index bookings_guide_id_idx on bookings (guide_id, id);
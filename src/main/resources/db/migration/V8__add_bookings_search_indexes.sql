@@ -0,0 +1,2 @@
+create index bookings_user_tour_idx on bookings (user_id, tour_id, id);
+create index bookings_guide_tour_idx on bookings (guide_id, tour_id, id);
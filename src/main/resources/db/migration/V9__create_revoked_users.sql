@@ -0,0 +1,4 @@
+create table revoked_users (
+    user_id integer not null primary key,
+    revoked_at timestamp not null default current_timestamp
+);
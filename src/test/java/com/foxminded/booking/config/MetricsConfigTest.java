@@ -0,0 +1,110 @@
+package com.foxminded.booking.config;
+
+import com.foxminded.booking.controller.RolesController;
+import com.foxminded.booking.security.jwt.JwtUser;
+import com.foxminded.booking.service.BookingService;
+import com.foxminded.booking.service.RoleService;
+import com.foxminded.booking.service.UserDetailsCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.ArrayList;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@WithMockUser(roles = {"ADMIN"})
+class MetricsConfigTest {
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RoleService roleService;
+
+    @MockBean
+    private BookingService bookingService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @Test
+    void shouldNameHandlerAfterControllerMethod() throws NoSuchMethodException {
+        HandlerMethod handler = new HandlerMethod(new RolesController(roleService, null), "getRoles");
+        assertEquals("RolesController.getRoles", MetricsConfig.handlerName(handler));
+        assertEquals("none", MetricsConfig.handlerName(new Object()));
+    }
+
+    @Test
+    void shouldRecordStatementsPerRequest() throws Exception {
+        when(roleService.findAll()).thenReturn(new ArrayList<>());
+        long before = count(RequestMetricsInterceptor.STATEMENTS, "RolesController.getRoles");
+        mockMvc.perform(get("/api/v1/roles"))
+                .andExpect(status().isOk());
+        assertEquals(before + 1, count(RequestMetricsInterceptor.STATEMENTS, "RolesController.getRoles"));
+        assertEquals(before + 1, count(RequestMetricsInterceptor.ENTITY_LOADS, "RolesController.getRoles"));
+    }
+
+    @Test
+    void shouldRecordAsynchronousRequestOnce() throws Exception {
+        long before = count(RequestMetricsInterceptor.STATEMENTS, "BookingsController.exportBookings");
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/bookings/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk());
+        assertEquals(before + 1, count(RequestMetricsInterceptor.STATEMENTS, "BookingsController.exportBookings"));
+    }
+
+    @Test
+    void shouldPublishUserDetailsCacheMetrics() {
+        userDetailsCache.clear();
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+        userDetailsCache.put(new JwtUser(1l, "a", "a", "metrics", "a", AuthorityUtils.createAuthorityList(ROLE_USER)));
+        userDetailsCache.get("metrics");
+        userDetailsCache.get("unknown");
+        assertEquals(hits + 1, cacheGets("hit"));
+        assertEquals(misses + 1, cacheGets("miss"));
+        assertEquals(1, registry.get("cache.size").tag("cache", "userDetails").gauge().value());
+    }
+
+    private long count(String name, String handler) {
+        DistributionSummary summary = registry.find(name).tag(MetricsConfig.HANDLER_TAG, handler).summary();
+        return summary != null ? summary.count() : 0;
+    }
+
+    private double cacheGets(String result) {
+        FunctionCounter counter = registry.get("cache.gets").tag("cache", "userDetails").tag("result", result).functionCounter();
+        return counter.count();
+    }
+}
@@ -0,0 +1,69 @@
+package com.foxminded.booking.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class VirtualThreadsConfigTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfig.class);
+
+    @Test
+    void shouldKeepWorkerPoolByDefault() {
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(VirtualThreadsConfig.class).isEmpty()));
+    }
+
+    @Test
+    void shouldKeepWorkerPoolWhenJdkHasNoVirtualThreads() {
+        assumeFalse(VirtualThreadsConfig.isAvailable());
+        contextRunner.withPropertyValues(VirtualThreadsConfig.ENABLED_PROPERTY + "=true")
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertTrue(context.getBeansOfType(VirtualThreadsConfig.class).isEmpty());
+                });
+    }
+
+    @Test
+    void shouldUseVirtualThreadsWhenEnabled() {
+        assumeTrue(VirtualThreadsConfig.isAvailable());
+        contextRunner.withPropertyValues(VirtualThreadsConfig.ENABLED_PROPERTY + "=true")
+                .run(context -> assertEquals(1, context.getBeansOfType(VirtualThreadsConfig.class).size()));
+    }
+
+    @Test
+    void shouldRunRequestsOnExecutor() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        VirtualThreadsConfig config = new VirtualThreadsConfig(executor);
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        config.virtualThreadsProtocolHandlerCustomizer().customize(protocolHandler);
+        verify(protocolHandler).setExecutor(executor);
+        config.shutdown();
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    void shouldRunAsyncResponsesOnExecutor() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncSupportConfigurer configurer = new AsyncSupportConfigurer();
+        new VirtualThreadsConfig(executor).configureAsyncSupport(configurer);
+        AsyncTaskExecutor taskExecutor = (AsyncTaskExecutor) ReflectionTestUtils.getField(configurer, "taskExecutor");
+        assertSame(executor, ((ConcurrentTaskExecutor) taskExecutor).getConcurrentExecutor());
+        executor.shutdown();
+    }
+}
@@ -8,7 +8,7 @@ import com.foxminded.booking.model.dto.ErrorDto;
 import com.foxminded.booking.model.dto.RegistrationDto;
 import com.foxminded.booking.model.dto.UserDto;
 import com.foxminded.booking.security.jwt.JwtTokenProvider;
-import com.foxminded.booking.service.RoleService;
+import com.foxminded.booking.service.RoleRegistry;
 import com.foxminded.booking.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,7 +42,7 @@ class AuthenticationControllerTest {
     private UserService userService;
 
     @MockBean
-    private RoleService roleService;
+    private RoleRegistry roleRegistry;
 
     @MockBean
     private JwtTokenProvider tokenProvider;
@@ -65,7 +65,7 @@ class AuthenticationControllerTest {
         dto.setUsername("a");
         dto.setPassword("a");
         String registrationDtoJson = mapper.writeValueAsString(dto);
-        when(roleService.findByName("ROLE_USER")).thenReturn(Optional.of(new Role(1l, "ROLE_USER")));
+        when(roleRegistry.findByName("ROLE_USER")).thenReturn(Optional.of(new Role(1l, "ROLE_USER")));
         when(userService.save(any(User.class))).thenReturn(expected);
         MvcResult mvcResult = mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON)
                 .content(registrationDtoJson))
@@ -95,7 +95,7 @@ class AuthenticationControllerTest {
         dto.setUsername("a");
         dto.setPassword("a");
         String registrationDtoJson = mapper.writeValueAsString(dto);
-        when(roleService.findByName("ROLE_USER")).thenReturn(Optional.empty());
+        when(roleRegistry.findByName("ROLE_USER")).thenReturn(Optional.empty());
         MvcResult mvcResult = mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON)
                 .content(registrationDtoJson))
                 .andExpect(status().isNoContent())
@@ -3,10 +3,19 @@ package com.foxminded.booking.controller;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.foxminded.booking.model.*;
+import com.foxminded.booking.model.dto.BookingCommandDto;
 import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import com.foxminded.booking.model.dto.BookingResultDto;
+import com.foxminded.booking.model.dto.BookingTicketDto;
 import com.foxminded.booking.model.dto.ErrorDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
+import com.foxminded.booking.security.jwt.JwtUser;
+import com.foxminded.booking.service.BookingBatchService;
+import com.foxminded.booking.service.BookingIntakeService;
 import com.foxminded.booking.service.BookingService;
-import com.foxminded.booking.service.GuideService;
+import com.foxminded.booking.service.GuideAssignmentService;
+import com.foxminded.booking.service.TourCapacityService;
 import com.foxminded.booking.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +24,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -27,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
 import static java.util.stream.Collectors.toList;
@@ -35,9 +46,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -52,7 +66,16 @@ class BookingsControllerTest {
     private UserService userService;
 
     @MockBean
-    private GuideService guideService;
+    private GuideAssignmentService guideAssignmentService;
+
+    @MockBean
+    private BookingBatchService bookingBatchService;
+
+    @MockBean
+    private TourCapacityService tourCapacityService;
+
+    @MockBean
+    private BookingIntakeService bookingIntakeService;
 
     @Autowired
     private WebApplicationContext context;
@@ -105,6 +128,17 @@ class BookingsControllerTest {
         verify(bookingService, times(1)).findByUserId(1l);
     }
 
+    @Test
+    void shouldTakeUserIdFromPrincipal() throws Exception {
+        JwtUser principal = new JwtUser(7l, null, null, "test", null, AuthorityUtils.createAuthorityList(ROLE_USER));
+        when(bookingService.findByUserId(7l)).thenReturn(new ArrayList<>());
+        mockMvc.perform(get("/api/v1/bookings").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        verify(userService, never()).findByUsername(anyString());
+        verify(bookingService, times(1)).findByUserId(7l);
+    }
+
     @WithMockUser(username = "test", roles = {"ADMIN"})
     @Test
     void shouldGetAllBookingsByGuideId() throws Exception {
@@ -133,11 +167,8 @@ class BookingsControllerTest {
 
         Tour tour = new Tour(1l, "easy", LocalDate.now(), LocalDate.now().plus(60, ChronoUnit.DAYS));
         Guide john = new Guide(1l, "John");
-        Guide peter = new Guide(2l, "Peter");
         Booking booking1 = new Booking(tour, user, john);
-        Booking booking2 = new Booking(tour, user, peter);
-        List<Booking> allBookings = Arrays.asList(booking1, booking2);
-        when(bookingService.findByUserId(1l)).thenReturn(allBookings);
+        when(bookingService.findByUserIdAndGuideId(1l, 1l)).thenReturn(Arrays.asList(booking1));
 
         List<BookingDto> expected = Arrays.asList(booking1.toBookingDto());
 
@@ -148,7 +179,98 @@ class BookingsControllerTest {
         List<BookingDto> actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<BookingDto>>() {
         });
         assertEquals(expected, actual);
-        verify(bookingService, times(1)).findByUserId(1l);
+        verify(bookingService, times(1)).findByUserIdAndGuideId(1l, 1l);
+        verify(bookingService, never()).findByUserId(anyLong());
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldSearchBookings() throws Exception {
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        User user = new User(2l, "Lewis", "Scott", "lewis", "user", new Role(ROLE_USER));
+        List<Booking> page = Arrays.asList(
+                new Booking(4l, tour, user, new Guide(1l, "Chris")),
+                new Booking(7l, tour, user, new Guide(1l, "Chris"))
+        );
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setUserId(2l);
+        filter.setDifficulty("easy");
+        filter.setStartFrom(LocalDate.of(2021, 4, 1));
+        when(bookingService.search(filter, 3l, 2)).thenReturn(page);
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/bookings/search?userId=2&difficulty=easy&startFrom=2021-04-01&after=3&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingsController.NEXT_CURSOR_HEADER, "4"))
+                .andReturn();
+        List<BookingDto> actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<BookingDto>>() {
+        });
+        assertEquals(Arrays.asList(page.get(0).toBookingDto()), actual);
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldSearchOnlyOwnBookingsForUser() throws Exception {
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(5l, "Hope", "Holder", "test", "user", new Role(ROLE_USER))));
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setUserId(5l);
+        filter.setGuideId(1l);
+        when(bookingService.search(filter, 0l, 21)).thenReturn(new ArrayList<>());
+        mockMvc.perform(get("/api/v1/bookings/search?userId=2&guideId=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().doesNotExist(BookingsController.NEXT_CURSOR_HEADER));
+        verify(bookingService, times(1)).search(filter, 0l, 21);
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldRejectSearchWithInvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/v1/bookings/search?limit=0"))
+                .andExpect(status().isBadRequest());
+        verify(bookingService, never()).search(any(), anyLong(), anyInt());
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldGetBookingsPageWithNextCursor() throws Exception {
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        User user = new User(2l, "Lewis", "Scott", "lewis", "user", new Role(ROLE_USER));
+        Guide guide = new Guide(1l, "Chris");
+        List<Booking> page = Arrays.asList(
+                new Booking(2l, tour, user, guide),
+                new Booking(3l, tour, user, guide),
+                new Booking(4l, tour, user, guide)
+        );
+        when(bookingService.findAfterId(1l, 3)).thenReturn(page);
+        mockMvc.perform(get("/api/v1/bookings?after=1&limit=2").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(BookingsController.NEXT_CURSOR_HEADER, "3"));
+        verify(bookingService, times(1)).findAfterId(1l, 3);
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldGetLastBookingsPageByUserIdWithoutNextCursor() throws Exception {
+        User user = new User(1l, "Alfred", "Einstain", "test", "123", new Role(ROLE_USER));
+        when(userService.findByUsername("test")).thenReturn(Optional.of(user));
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        List<Booking> page = Arrays.asList(new Booking(5l, tour, user, new Guide(1l, "John")));
+        when(bookingService.findByUserIdAndGuideIdAfterId(1l, 1l, 0l, 3)).thenReturn(page);
+        mockMvc.perform(get("/api/v1/bookings?guideId=1&limit=2").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist(BookingsController.NEXT_CURSOR_HEADER));
+        verify(bookingService, times(1)).findByUserIdAndGuideIdAfterId(1l, 1l, 0l, 3);
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldRejectInvalidPageLimit() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/bookings?limit=0").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        ErrorDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), ErrorDto.class);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatus());
     }
 
     @WithMockUser(roles = {"ADMIN"})
@@ -194,10 +316,8 @@ class BookingsControllerTest {
                 new Guide(1l, "Chris")
         );
         when(userService.findByUsername("test")).thenReturn(Optional.of(new User(2l, "Lewis", "Scott", "test", "user", new Role("ROLE_USER"))));
-        when(guideService.findAll()).thenReturn(new ArrayList<Guide>() {{
-            add(new Guide(1l, "Chris"));
-        }});
-        when(bookingService.save(any(Booking.class))).thenReturn(expected);
+        when(guideAssignmentService.assign()).thenReturn(new Guide(1l, "Chris"));
+        when(bookingService.saveDto(any(Booking.class), eq(2l))).thenReturn(expected.toBookingDto());
         MvcResult mvcResult = mockMvc.perform(post("/api/v1/bookings").contentType(MediaType.APPLICATION_JSON)
                 .content(tourJson))
                 .andExpect(status().isCreated())
@@ -205,8 +325,129 @@ class BookingsControllerTest {
         BookingDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), BookingDto.class);
         assertEquals(expected.toBookingDto(), actual);
         verify(userService, times(1)).findByUsername("test");
-        verify(guideService, times(1)).findAll();
-        verify(bookingService, times(1)).save(any(Booking.class));
+        verify(guideAssignmentService, times(1)).assign();
+        verify(bookingService, times(1)).saveDto(any(Booking.class), eq(2l));
+        verify(tourCapacityService, times(1)).reserve(1l);
+        verify(tourCapacityService, times(1)).confirm(1l);
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldQueueBookingInAsyncMode() throws Exception {
+        String tourJson = mapper.writeValueAsString(new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1),
+                LocalDate.of(2021, 4, 2)));
+        BookingTicketDto expected = BookingTicketDto.accepted("ticket");
+        when(bookingIntakeService.isEnabled()).thenReturn(true);
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(5l, "Hope", "Holder", "test", "user", new Role(ROLE_USER))));
+        when(bookingIntakeService.submit(new BookingCommandDto(1l, 5l))).thenReturn(expected);
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(tourJson))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/bookings/tickets/ticket"))
+                .andReturn();
+        BookingTicketDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), BookingTicketDto.class);
+        assertEquals(expected, actual);
+        verify(bookingService, never()).saveDto(any(Booking.class), anyLong());
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldGetOwnTicket() throws Exception {
+        BookingTicketDto expected = BookingTicketDto.failed("ticket", HttpStatus.CONFLICT, "tour is fully booked");
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(5l, "Hope", "Holder", "test", "user", new Role(ROLE_USER))));
+        when(bookingIntakeService.findTicket("ticket", 5l)).thenReturn(Optional.of(expected));
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/bookings/tickets/ticket"))
+                .andExpect(status().isOk())
+                .andReturn();
+        BookingTicketDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), BookingTicketDto.class);
+        assertEquals(expected, actual);
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldThrowTicketNotFoundException() throws Exception {
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(5l, "Hope", "Holder", "test", "user", new Role(ROLE_USER))));
+        when(bookingIntakeService.findTicket("ticket", 5l)).thenReturn(Optional.empty());
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/bookings/tickets/ticket"))
+                .andExpect(status().isNotFound())
+                .andReturn();
+        ErrorDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), ErrorDto.class);
+        assertEquals("ticket not found", actual.getMessage());
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldRejectBookingOfFullyBookedTour() throws Exception {
+        String tourJson = mapper.writeValueAsString(new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1),
+                LocalDate.of(2021, 4, 2)));
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(2l, "Lewis", "Scott", "test", "user", new Role("ROLE_USER"))));
+        doThrow(new HttpStatusException("tour is fully booked", HttpStatus.CONFLICT)).when(tourCapacityService).reserve(1l);
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(tourJson))
+                .andExpect(status().isConflict())
+                .andReturn();
+        ErrorDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), ErrorDto.class);
+        assertEquals("tour is fully booked", actual.getMessage());
+        verify(guideAssignmentService, never()).assign();
+        verify(bookingService, never()).saveDto(any(Booking.class), anyLong());
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldCancelReservationWhenBookingFails() throws Exception {
+        String tourJson = mapper.writeValueAsString(new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1),
+                LocalDate.of(2021, 4, 2)));
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(2l, "Lewis", "Scott", "test", "user", new Role("ROLE_USER"))));
+        when(guideAssignmentService.assign()).thenReturn(new Guide(1l, "Chris"));
+        when(bookingService.saveDto(any(Booking.class), eq(2l))).thenThrow(new HttpStatusException("failed", HttpStatus.INTERNAL_SERVER_ERROR));
+        mockMvc.perform(post("/api/v1/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(tourJson))
+                .andExpect(status().isInternalServerError());
+        verify(tourCapacityService, times(1)).cancel(1l);
+        verify(tourCapacityService, never()).confirm(1l);
+        verify(guideAssignmentService, times(1)).release(1l);
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldCreateBookingsInBulk() throws Exception {
+        List<BookingCommandDto> commands = Arrays.asList(new BookingCommandDto(1l, 2l), new BookingCommandDto(1000l, 2l));
+        List<BookingResultDto> expected = Arrays.asList(
+                BookingResultDto.created(0, new Booking(
+                        1l,
+                        new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)),
+                        new User(2l, "Lewis", "Scott", "lewis", "user", new Role(ROLE_USER)),
+                        new Guide(1l, "Chris")
+                ).toBookingDto()),
+                BookingResultDto.failed(1, HttpStatus.NOT_FOUND, "tour not found")
+        );
+        when(bookingBatchService.createAll(commands)).thenReturn(expected);
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/bookings/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(commands)))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<BookingResultDto> actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<BookingResultDto>>() {
+        });
+        assertEquals(expected, actual);
+    }
+
+    @WithMockUser(username = "test")
+    @Test
+    void shouldCreateBookingsInBulkForCurrentUser() throws Exception {
+        when(userService.findByUsername("test")).thenReturn(Optional.of(new User(5l, "Hope", "Holder", "test", "user", new Role(ROLE_USER))));
+        List<BookingCommandDto> commands = Arrays.asList(new BookingCommandDto(1l, 2l), new BookingCommandDto(2l, null));
+        mockMvc.perform(post("/api/v1/bookings/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(commands)))
+                .andExpect(status().isOk());
+        verify(bookingBatchService, times(1)).createAll(Arrays.asList(new BookingCommandDto(1l, 5l), new BookingCommandDto(2l, 5l)));
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/v1/bookings/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
     }
 
     @WithMockUser
@@ -222,6 +463,50 @@ class BookingsControllerTest {
         assertTrue(actual.getMessage().startsWith("not valid due to validation error:"));
     }
 
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldExportBookingsAsNdjson() throws Exception {
+        List<Booking> bookings = Arrays.asList(
+                new Booking(
+                        1l,
+                        new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)),
+                        new User(2l, "Lewis", "Scott", "lewis", "user", new Role(ROLE_USER)),
+                        new Guide(1l, "Chris")
+                ),
+                new Booking(
+                        2l,
+                        new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)),
+                        new User(3l, "Edward", "Crock", "edward", "user", new Role(ROLE_USER)),
+                        new Guide(2l, "Bill")
+                )
+        );
+        doAnswer(invocation -> {
+            bookings.forEach(invocation.<Consumer<Booking>>getArgument(0));
+            return null;
+        }).when(bookingService).exportAll(any(Consumer.class));
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/bookings/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(3600000l, asyncResult.getRequest().getAsyncContext().getTimeout());
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", BookingsController.NDJSON))
+                .andReturn();
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(bookings.get(0).toBookingDto(), mapper.readValue(lines[0], BookingDto.class));
+        assertEquals(bookings.get(1).toBookingDto(), mapper.readValue(lines[1], BookingDto.class));
+    }
+
+    @WithMockUser
+    @Test
+    void shouldForbidExportForUser() throws Exception {
+        mockMvc.perform(get("/api/v1/bookings/export"))
+                .andExpect(status().isForbidden());
+        verify(bookingService, never()).exportAll(any());
+    }
+
     @WithMockUser(roles = {"ADMIN"})
     @Test
     void shouldEditBookingById() throws Exception {
@@ -246,7 +531,7 @@ class BookingsControllerTest {
                 new User(2l, "Lewis", "Scott", "lewis", "user", new Role("ROLE_USER")),
                 new Guide(1l, "Chris")
         )));
-        when(bookingService.save(any(Booking.class))).thenReturn(expected);
+        when(bookingService.update(any(Booking.class), eq(1l))).thenReturn(expected);
         MvcResult mvcResult = mockMvc.perform(put("/api/v1/bookings/1").contentType(MediaType.APPLICATION_JSON)
                 .content(bookingJson))
                 .andExpect(status().isOk())
@@ -0,0 +1,97 @@
+package com.foxminded.booking.controller;
+
+import com.foxminded.booking.security.jwt.JwtUser;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the statements each booking list endpoint prepares against the seeded bookings, from the
+ * request down to the rendered DTOs, so loading associations row by row shows up as a failure.
+ */
+@SpringBootTest
+class BookingsQueryCountTest {
+    private static final JwtUser ADMIN = new JwtUser(1l, "Daniil", "Malashev", "daniil", null,
+            AuthorityUtils.createAuthorityList(ROLE_ADMIN));
+    private static final JwtUser USER = new JwtUser(2l, "Lewis", "Scott", "lewis", null,
+            AuthorityUtils.createAuthorityList(ROLE_USER));
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldGetAllBookingsWithSingleStatement() throws Exception {
+        assertEquals(1, countStatements(get("/api/v1/bookings").with(user(ADMIN))));
+        assertEquals(1, countStatements(get("/api/v1/bookings?guideId=1").with(user(ADMIN))));
+        assertEquals(1, countStatements(get("/api/v1/bookings").with(user(USER))));
+        assertEquals(1, countStatements(get("/api/v1/bookings?guideId=1").with(user(USER))));
+    }
+
+    @Test
+    void shouldGetPageOfBookingsWithSingleStatement() throws Exception {
+        assertEquals(1, countStatements(get("/api/v1/bookings?limit=2").with(user(ADMIN))));
+        assertEquals(1, countStatements(get("/api/v1/bookings?guideId=1&limit=2").with(user(ADMIN))));
+        assertEquals(1, countStatements(get("/api/v1/bookings?limit=2").with(user(USER))));
+    }
+
+    @Test
+    void shouldSearchBookingsWithTwoStatements() throws Exception {
+        assertEquals(2, countStatements(get("/api/v1/bookings/search?tourId=1").with(user(ADMIN))));
+        assertEquals(2, countStatements(get("/api/v1/bookings/search?guideId=1").with(user(USER))));
+    }
+
+    @Test
+    void shouldExportBookingsWithSingleStatement() throws Exception {
+        statistics.clear();
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/bookings/export").with(user(ADMIN)))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(emptyString())));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isNotEmpty());
+        return statistics.getPrepareStatementCount();
+    }
+}
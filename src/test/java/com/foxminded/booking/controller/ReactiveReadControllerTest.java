@@ -0,0 +1,167 @@
+package com.foxminded.booking.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.model.User;
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.GuideDto;
+import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.repository.ReactiveReadRepository;
+import com.foxminded.booking.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.foxminded.booking.controller.BookingsController.NEXT_CURSOR_HEADER;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "reactive.enabled=true")
+class ReactiveReadControllerTest {
+    private MockMvc mockMvc;
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @MockBean
+    private ReactiveReadRepository repository;
+
+    @MockBean
+    private UserService userService;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @WithMockUser(roles = {"USER"})
+    @Test
+    void shouldGetAllTours() throws Exception {
+        TourDto tour = new TourDto();
+        tour.setId(1l);
+        tour.setPrice(3l);
+        tour.setDifficulty("easy");
+        tour.setStart(LocalDate.of(2021, 4, 1));
+        tour.setFinish(LocalDate.of(2021, 4, 2));
+        when(repository.findTours()).thenReturn(Flux.just(tour));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/reactive/tours").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn();
+        List<TourDto> actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<TourDto>>() {
+        });
+        assertEquals(Arrays.asList(tour), actual);
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldGetAllBookingsOfGuideForAdmin() throws Exception {
+        GuideDto guide = new GuideDto();
+        guide.setId(1l);
+        guide.setName("John");
+        BookingDto booking = new BookingDto();
+        booking.setId(1l);
+        booking.setGuideDto(guide);
+        when(repository.findBookings(null, 1l, null, 21)).thenReturn(Flux.just(booking));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/reactive/bookings?guideId=1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].guideDto.name").value("John"));
+        verify(repository, times(1)).findBookings(null, 1l, null, 21);
+        verifyNoInteractions(userService);
+    }
+
+    @WithMockUser(username = "test", roles = {"USER"})
+    @Test
+    void shouldGetOnlyOwnBookingsForUser() throws Exception {
+        User user = new User(2l, "Alfred", "Einstain", "test", "123", new Role(ROLE_USER));
+        when(userService.findByUsername("test")).thenReturn(Optional.of(user));
+        when(repository.findBookings(2l, null, null, 21)).thenReturn(Flux.empty());
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/reactive/bookings").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        verify(repository, times(1)).findBookings(2l, null, null, 21);
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldGetPageOfBookingsWithNextCursor() throws Exception {
+        BookingDto first = new BookingDto();
+        first.setId(5l);
+        BookingDto second = new BookingDto();
+        second.setId(6l);
+        when(repository.findBookings(null, null, 4l, 2)).thenReturn(Flux.just(first, second));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/reactive/bookings?after=4&limit=1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NEXT_CURSOR_HEADER, "5"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(5));
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldRejectTooLargePageOfBookings() throws Exception {
+        mockMvc.perform(get("/api/v1/reactive/bookings?limit=1001").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(repository);
+    }
+
+    @WithMockUser(roles = {"ADMIN"})
+    @Test
+    void shouldStreamAllBookings() throws Exception {
+        BookingDto booking = new BookingDto();
+        booking.setId(1l);
+        when(repository.findBookings(null, null, null, null)).thenReturn(Flux.just(booking));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/reactive/bookings").accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"id\":1")));
+        verify(repository, times(1)).findBookings(null, null, null, null);
+    }
+}
@@ -6,6 +6,7 @@ import com.foxminded.booking.model.Role;
 import com.foxminded.booking.model.dto.ErrorDto;
 import com.foxminded.booking.model.dto.RoleDto;
 import com.foxminded.booking.service.RoleService;
+import com.foxminded.booking.service.TokenVersionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +43,9 @@ class RolesControllerTest {
     @MockBean
     private RoleService roleService;
 
+    @MockBean
+    private TokenVersionService tokenVersionService;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -64,6 +68,14 @@ class RolesControllerTest {
 
     }
 
+    @WithMockUser(roles = {"USER"})
+    @Test
+    void shouldForbidRolesForUser() throws Exception {
+        mockMvc.perform(get("/api/v1/roles").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+        verify(roleService, never()).findAll();
+    }
+
     @Test
     void shouldGetRoleById() throws Exception {
         Role expected = new Role(1l, "a");
@@ -123,6 +135,18 @@ class RolesControllerTest {
                 .andReturn();
         RoleDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), RoleDto.class);
         assertEquals(expected.toRoleDto(), actual);
+        verify(tokenVersionService, times(1)).revokeRole(1l);
+    }
+
+    @Test
+    void shouldKeepTokensWhenRoleNameIsUnchanged() throws Exception {
+        String roleJson = mapper.writeValueAsString(new Role("a"));
+        when(roleService.findById(1l)).thenReturn(Optional.of(new Role(1l, "a")));
+        when(roleService.save(any(Role.class))).thenReturn(new Role(1l, "a"));
+        mockMvc.perform(put("/api/v1/roles/1").contentType(MediaType.APPLICATION_JSON)
+                .content(roleJson))
+                .andExpect(status().isOk());
+        verify(tokenVersionService, never()).revokeRole(anyLong());
     }
 
     @Test
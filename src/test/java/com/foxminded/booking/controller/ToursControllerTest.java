@@ -4,7 +4,9 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.foxminded.booking.model.Tour;
 import com.foxminded.booking.model.dto.ErrorDto;
+import com.foxminded.booking.model.dto.TourFilterDto;
 import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.service.TourCatalogCache;
 import com.foxminded.booking.service.TourService;
 import com.foxminded.booking.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +14,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -22,6 +28,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -46,6 +54,9 @@ class ToursControllerTest {
     @MockBean
     private UserService userService;
 
+    @Autowired
+    private TourCatalogCache catalogCache;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -57,9 +68,10 @@ class ToursControllerTest {
     @Test
     void shouldGetAllTours() throws Exception {
         List<TourDto> expected = new ArrayList<>();
-        when(tourService.findAll()).thenReturn(new ArrayList<>());
+        when(tourService.catalog()).thenReturn(catalogCache.put(catalogCache.version(), new ArrayList<>()));
         MvcResult mvcResult = mockMvc.perform(get("/api/v1/tours").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogCache.eTag()))
                 .andExpect(jsonPath("$", hasSize(0)))
                 .andReturn();
         List<TourDto> actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<TourDto>>() {
@@ -67,21 +79,107 @@ class ToursControllerTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void shouldNotLoadToursWhenCatalogIsNotModified() throws Exception {
+        mockMvc.perform(get("/api/v1/tours").header(HttpHeaders.IF_NONE_MATCH, catalogCache.eTag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogCache.eTag()));
+        verify(tourService, never()).catalog();
+    }
+
+    @Test
+    void shouldLoadToursWhenCatalogWasModified() throws Exception {
+        String eTag = catalogCache.eTag();
+        catalogCache.invalidate();
+        Tour tour = new Tour(1l, 3l, "a", LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2));
+        when(tourService.catalog()).thenReturn(catalogCache.put(catalogCache.version(), Collections.singletonList(tour)));
+        mockMvc.perform(get("/api/v1/tours").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogCache.eTag()))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void shouldSearchTours() throws Exception {
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        TourFilterDto filter = new TourFilterDto();
+        filter.setDifficulty("easy");
+        filter.setMaxPrice(4l);
+        filter.setStartFrom(LocalDate.of(2021, 4, 1));
+        PageRequest pageable = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id")));
+        when(tourService.search(filter, pageable)).thenReturn(new SliceImpl<>(Collections.singletonList(tour), pageable, true));
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/tours/search")
+                .param("difficulty", "easy")
+                .param("maxPrice", "4")
+                .param("startFrom", "2021-04-01")
+                .param("sort", "price,desc")
+                .param("page", "1")
+                .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ToursController.HAS_NEXT_HEADER, "true"))
+                .andReturn();
+        List<TourDto> actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<TourDto>>() {
+        });
+        assertEquals(Collections.singletonList(tour.toTourDto()), actual);
+    }
+
+    @Test
+    void shouldSearchToursSortedByIdByDefault() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 20, Sort.by("id"));
+        when(tourService.search(new TourFilterDto(), pageable)).thenReturn(new SliceImpl<>(new ArrayList<>(), pageable, false));
+        mockMvc.perform(get("/api/v1/tours/search"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ToursController.HAS_NEXT_HEADER, "false"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        verify(tourService, times(1)).search(new TourFilterDto(), pageable);
+    }
+
+    @Test
+    void shouldRejectSearchByNotIndexedField() throws Exception {
+        mockMvc.perform(get("/api/v1/tours/search").param("sort", "difficulty"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/tours/search").param("size", "1000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/tours/search").param("page", "101").param("size", "100"))
+                .andExpect(status().isBadRequest());
+        verify(tourService, never()).search(any(), any());
+    }
+
     @Test
     void shouldGetTourById() throws Exception {
         Tour expected = new Tour(1l, 3l, "a", LocalDate.of(2020, 1, 1),
                 LocalDate.of(2020, 1, 2));
-        when(tourService.findById(1l)).thenReturn(Optional.of(expected));
+        when(tourService.findDtoById(1l)).thenReturn(Optional.of(expected.toTourDto()));
         MvcResult mvcResult = mockMvc.perform(get("/api/v1/tours/1").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogCache.eTag(1l)))
                 .andReturn();
         TourDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), TourDto.class);
         assertEquals(expected.toTourDto(), actual);
+        verify(tourService, never()).catalog();
+    }
+
+    @Test
+    void shouldNotLoadTourWhenItIsNotModified() throws Exception {
+        Tour tour = new Tour(1l, 3l, "a", LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2));
+        when(tourService.findDtoById(1l)).thenReturn(Optional.of(tour.toTourDto()));
+        mockMvc.perform(get("/api/v1/tours/1").header(HttpHeaders.IF_NONE_MATCH, catalogCache.eTag(1l)))
+                .andExpect(status().isNotModified());
+        verify(tourService, never()).catalog();
+    }
+
+    @Test
+    void shouldNotAnswerNotModifiedForMissingTour() throws Exception {
+        when(tourService.findDtoById(1l)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/api/v1/tours/1").header(HttpHeaders.IF_NONE_MATCH, catalogCache.eTag(1l)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/tours/1").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
     void shouldThrowTourNotFoundExceptionInGetMethod() throws Exception {
-        when(tourService.findById(1l)).thenReturn(Optional.empty());
+        when(tourService.findDtoById(1l)).thenReturn(Optional.empty());
         MvcResult mvcResult = mockMvc.perform(get("/api/v1/tours/1").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andReturn();
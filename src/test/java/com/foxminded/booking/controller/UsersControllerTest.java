@@ -6,6 +6,7 @@ import com.foxminded.booking.model.Role;
 import com.foxminded.booking.model.User;
 import com.foxminded.booking.model.dto.ErrorDto;
 import com.foxminded.booking.model.dto.UserDto;
+import com.foxminded.booking.service.TokenVersionService;
 import com.foxminded.booking.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,6 +44,9 @@ class UsersControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private TokenVersionService tokenVersionService;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -65,6 +69,16 @@ class UsersControllerTest {
 
     }
 
+    @Test
+    void shouldGetUserDetailsCacheStats() throws Exception {
+        mockMvc.perform(get("/api/v1/users/cache").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxSize").value(10000))
+                .andExpect(jsonPath("$.hits").exists())
+                .andExpect(jsonPath("$.misses").exists())
+                .andExpect(jsonPath("$.evictions").exists());
+    }
+
     @Test
     void shouldGetUserById() throws Exception {
         User expected = new User(1l, "a", "a", "a", "a",
@@ -130,6 +144,7 @@ class UsersControllerTest {
                 .andReturn();
         UserDto actual = mapper.readValue(mvcResult.getResponse().getContentAsString(), UserDto.class);
         assertEquals(expected.toUserDto(), actual);
+        verify(tokenVersionService, times(1)).revoke(1l);
     }
 
     @Test
@@ -164,5 +179,6 @@ class UsersControllerTest {
         mockMvc.perform(delete("/api/v1/users/1"))
                 .andExpect(status().isOk());
         verify(userService, times(1)).deleteById(1l);
+        verify(tokenVersionService, times(1)).revokeDeleted(1l);
     }
 }
\ No newline at end of file
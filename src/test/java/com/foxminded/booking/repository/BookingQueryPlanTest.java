@@ -0,0 +1,140 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs each bookings finder, captures the SQL Hibernate sent for it and checks which index the
+ * database picks for that SQL, so dropping or reshaping an index breaks the build instead of
+ * turning a lookup into a scan of the bookings table.
+ * <p>
+ * H2 indexes foreign keys on its own, PostgreSQL does not. A lookup by a single foreign key is
+ * served by those indexes here whether the V7 indexes exist or not, so for those finders the test
+ * checks the index definitions instead of the plan.
+ */
+@DataJpaTest(properties = QueryPlans.INSPECTOR)
+class BookingQueryPlanTest {
+    private static final String TABLE_SCAN = "bookings.tablescan";
+
+    @Autowired
+    private BookingRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The seeded table holds a handful of rows, on which the optimizer sees no difference between
+     * the indexes. The bookings get the shape of a populated table instead, many users with a few
+     * bookings each and a small number of tours and guides, and the statistics are computed from
+     * it. Analyzing commits, so the rows are removed again after the class.
+     */
+    @BeforeAll
+    static void populate(@Autowired JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("insert into guides (id, name) select 1000 + x, 'guide' from system_range(1, 20)");
+        jdbcTemplate.execute("insert into users (id, first_name, last_name, username, password, role_id) " +
+                "select 1000 + x, 'first', 'last', 'plan' || x, 'password', 1 from system_range(1, 2000)");
+        jdbcTemplate.execute("insert into tours (id, price, difficulty, start, finish) " +
+                "select 1000 + x, 1, 'easy', date '2021-04-01', date '2021-04-02' from system_range(1, 50)");
+        jdbcTemplate.execute("insert into bookings (id, tour_id, user_id, guide_id) select 100000 + x, " +
+                "1001 + mod(x, 50), 1001 + mod(x, 2000), 1001 + mod(x, 20) from system_range(1, 10000)");
+        jdbcTemplate.execute("analyze table bookings");
+    }
+
+    @AfterAll
+    static void cleanUp(@Autowired JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("delete from bookings where id > 100000");
+        jdbcTemplate.execute("delete from tours where id > 1000");
+        jdbcTemplate.execute("delete from users where id > 1000");
+        jdbcTemplate.execute("delete from guides where id > 1000");
+    }
+
+    @Test
+    void shouldIndexBookingsByTourId() {
+        assertEquals(Arrays.asList("tour_id", "id"), indexColumns("bookings_tour_id_idx"));
+    }
+
+    @Test
+    void shouldIndexBookingsByUserId() {
+        assertEquals(Arrays.asList("user_id", "id"), indexColumns("bookings_user_id_idx"));
+    }
+
+    @Test
+    void shouldIndexBookingsByGuideId() {
+        assertEquals(Arrays.asList("guide_id", "id"), indexColumns("bookings_guide_id_idx"));
+    }
+
+    @Test
+    void shouldIndexBookingsByUserIdAndGuideId() {
+        assertEquals(Arrays.asList("user_id", "guide_id", "id"), indexColumns("bookings_user_guide_idx"));
+    }
+
+    @Test
+    void shouldFindPageAfterIdWithIndex() {
+        String plan = plan(() -> repository.findByIdGreaterThanOrderByIdAsc(1l, PageRequest.of(0, 10)));
+        assertFalse(plan.contains(TABLE_SCAN), plan);
+    }
+
+    @Test
+    void shouldFindPageByGuideIdWithIndex() {
+        String plan = plan(() -> repository.findByGuideIdAndIdGreaterThanOrderByIdAsc(1l, 1l, PageRequest.of(0, 10)));
+        assertTrue(plan.contains("bookings_guide_id_idx"), plan);
+    }
+
+    @Test
+    void shouldFindPageByUserIdWithIndex() {
+        String plan = plan(() -> repository.findByUserIdAndIdGreaterThanOrderByIdAsc(1l, 1l, PageRequest.of(0, 10)));
+        assertTrue(plan.contains("bookings_user_id_idx"), plan);
+    }
+
+    @Test
+    void shouldSearchByUserIdAndTourIdWithCompositeIndex() {
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setUserId(1l);
+        filter.setTourId(1l);
+        String plan = searchPlan(filter);
+        assertTrue(plan.contains("bookings_user_tour_idx"), plan);
+    }
+
+    @Test
+    void shouldSearchByGuideIdAndTourIdWithCompositeIndex() {
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setGuideId(1l);
+        filter.setTourId(1l);
+        String plan = searchPlan(filter);
+        assertTrue(plan.contains("bookings_guide_tour_idx"), plan);
+    }
+
+    private String plan(Runnable finder) {
+        return QueryPlans.plan(jdbcTemplate, finder);
+    }
+
+    /**
+     * Explains the statement selecting the ids of a search page, the one the filter shapes.
+     */
+    private String searchPlan(BookingFilterDto filter) {
+        QueryPlans.clear();
+        repository.findPage(BookingSpecifications.matching(filter), 0l, 10);
+        List<String> statements = QueryPlans.statements();
+        assertFalse(statements.isEmpty());
+        return QueryPlans.explain(jdbcTemplate, statements.get(0));
+    }
+
+    private List<String> indexColumns(String index) {
+        return jdbcTemplate.queryForList("select lower(column_name) from information_schema.indexes " +
+                "where lower(table_name) = 'bookings' and lower(index_name) = ? order by ordinal_position",
+                String.class, index);
+    }
+}
@@ -1,20 +1,30 @@
 package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.*;
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
@@ -22,6 +32,12 @@ class BookingRepositoryTest {
     @Autowired
     private BookingRepository repository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @AfterAll
     @Sql("/test/sql/cleanTables.sql")
     static void cleanUp() {
@@ -175,6 +191,123 @@ class BookingRepositoryTest {
         assertEquals(expected, repository.findAll());
     }
 
+    @Test
+    void shouldFindPageAfterId() {
+        List<Booking> actual = repository.findByIdGreaterThanOrderByIdAsc(1l, PageRequest.of(0, 1));
+        assertEquals(1, actual.size());
+        assertEquals(2l, actual.get(0).getId());
+    }
+
+    @Test
+    void shouldFindPageByGuideIdAfterId() {
+        List<Booking> actual = repository.findByGuideIdAndIdGreaterThanOrderByIdAsc(1l, 1l, PageRequest.of(0, 10));
+        assertEquals(2, actual.size());
+        assertEquals(2l, actual.get(0).getId());
+        assertEquals(3l, actual.get(1).getId());
+    }
+
+    @Test
+    void shouldFindPageByUserIdAfterId() {
+        assertEquals(1, repository.findByUserIdAndIdGreaterThanOrderByIdAsc(2l, 0l, PageRequest.of(0, 10)).size());
+        assertEquals(new ArrayList<>(), repository.findByUserIdAndIdGreaterThanOrderByIdAsc(2l, 1l, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void shouldFindPageByUserIdAndGuideIdAfterId() {
+        assertEquals(1, repository.findByUserIdAndGuideIdAndIdGreaterThanOrderByIdAsc(3l, 1l, 0l, PageRequest.of(0, 10)).size());
+        assertEquals(new ArrayList<>(), repository.findByUserIdAndGuideIdAndIdGreaterThanOrderByIdAsc(3l, 2l, 0l, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void shouldFindPageMatchingFilter() {
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setTourId(1l);
+        filter.setGuideId(1l);
+        filter.setDifficulty("easy");
+        filter.setStartFrom(LocalDate.of(2021, 4, 1));
+        filter.setStartTo(LocalDate.of(2021, 4, 30));
+        List<Booking> first = repository.findPage(BookingSpecifications.matching(filter), 0l, 2);
+        assertEquals(2, first.size());
+        assertEquals(1l, first.get(0).getId());
+        assertEquals(2l, first.get(1).getId());
+        List<Booking> last = repository.findPage(BookingSpecifications.matching(filter), 2l, 2);
+        assertEquals(1, last.size());
+        assertEquals(3l, last.get(0).getId());
+    }
+
+    @Test
+    void shouldFindEmptyPageMatchingFilter() {
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setUserId(2l);
+        filter.setStartFrom(LocalDate.of(2021, 5, 1));
+        assertEquals(new ArrayList<>(), repository.findPage(BookingSpecifications.matching(filter), 0l, 10));
+    }
+
+    @Test
+    void shouldFindPageMatchingFilterWithTwoStatements() {
+        BookingFilterDto filter = new BookingFilterDto();
+        filter.setDifficulty("easy");
+        assertEquals(2, countStatements(() -> repository.findPage(BookingSpecifications.matching(filter), 0l, 10)));
+    }
+
+    @Test
+    void shouldFindAllWithSingleStatement() {
+        assertEquals(1, countStatements(() -> repository.findAll()));
+    }
+
+    @Test
+    void shouldFindByTourIdWithSingleStatement() {
+        assertEquals(1, countStatements(() -> repository.findByTourId(1l)));
+    }
+
+    @Test
+    void shouldFindByUserIdWithSingleStatement() {
+        assertEquals(1, countStatements(() -> repository.findByUserId(2l)));
+    }
+
+    @Test
+    void shouldFindByGuideIdWithSingleStatement() {
+        assertEquals(1, countStatements(() -> repository.findByGuideId(1l)));
+    }
+
+    @Test
+    void shouldFindPagesWithSingleStatement() {
+        assertEquals(1, countStatements(() -> repository.findByIdGreaterThanOrderByIdAsc(0l, PageRequest.of(0, 10))));
+        assertEquals(1, countStatements(() -> repository.findByGuideIdAndIdGreaterThanOrderByIdAsc(1l, 0l, PageRequest.of(0, 10))));
+        assertEquals(1, countStatements(() -> repository.findByUserIdAndIdGreaterThanOrderByIdAsc(2l, 0l, PageRequest.of(0, 10))));
+        assertEquals(1, countStatements(() -> repository.findByUserIdAndGuideIdAndIdGreaterThanOrderByIdAsc(2l, 1l, 0l, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void shouldStreamAllInIdOrderWithSingleStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        List<Long> ids;
+        try (Stream<Booking> bookings = repository.streamAll()) {
+            ids = bookings
+                    .peek(Booking::toBookingDto)
+                    .map(Booking::getId)
+                    .collect(Collectors.toList());
+        }
+        assertEquals(new ArrayList<Long>() {{
+            add(1l);
+            add(2l);
+            add(3l);
+        }}, ids);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private long countStatements(Supplier<List<Booking>> finder) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        List<Booking> bookings = finder.get();
+        assertFalse(bookings.isEmpty());
+        bookings.forEach(Booking::toBookingDto);
+        return statistics.getPrepareStatementCount();
+    }
+
     @Test
     void shouldDeleteById() {
         assertEquals(Optional.of(new Booking(
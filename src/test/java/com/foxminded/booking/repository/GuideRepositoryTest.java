@@ -1,6 +1,8 @@
 package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.Guide;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,19 +11,25 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.test.context.jdbc.Sql;
 
+import javax.persistence.EntityManagerFactory;
 import javax.validation.ConstraintViolationException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@DataJpaTest
+@DataJpaTest(properties = QueryPlans.INSPECTOR)
 class GuideRepositoryTest {
     @Autowired
     private GuideRepository repository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @AfterAll
     @Sql("/test/sql/cleanTables.sql")
     static void cleanUp() {
@@ -34,9 +42,28 @@ class GuideRepositoryTest {
         assertEquals(expected, repository.save(expected));
     }
 
+    /**
+     * Ids come from the pooled sequence, so the inserts of one flush share a single prepared
+     * statement. Sequence calls are not counted, they depend on how much of the pool earlier
+     * tests used up.
+     */
+    @Test
+    void shouldBatchInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        QueryPlans.clear();
+        repository.saveAll(Arrays.asList(new Guide("a"), new Guide("b"), new Guide("c")));
+        repository.flush();
+        assertEquals(3, statistics.getEntityInsertCount());
+        List<String> statements = QueryPlans.statements();
+        assertEquals(1, statements.stream()
+                .filter(sql -> sql.trim().startsWith("insert"))
+                .count(), statements::toString);
+    }
+
     @Test
     void shouldThrowConstraintViolationException() {
-        assertThrows(ConstraintViolationException.class, () -> repository.save(new Guide()));
+        assertThrows(ConstraintViolationException.class, () -> repository.saveAndFlush(new Guide()));
     }
 
     @Test
@@ -73,6 +100,15 @@ class GuideRepositoryTest {
         assertEquals(expected, repository.findAll());
     }
 
+    @Test
+    void shouldFindAllWithBookingsCount() {
+        List<Object[]> actual = repository.findAllWithBookingsCount();
+        assertEquals(3, actual.size());
+        assertArrayEquals(new Object[]{1l, "Chris", 3l}, actual.get(0));
+        assertArrayEquals(new Object[]{2l, "Bill", 0l}, actual.get(1));
+        assertArrayEquals(new Object[]{3l, "Kale", 0l}, actual.get(2));
+    }
+
     @Test
     void shouldDeleteById() {
         assertEquals(Optional.of(new Guide(1l, "Chris")), repository.findById(1l));
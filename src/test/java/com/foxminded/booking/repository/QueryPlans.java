@@ -0,0 +1,59 @@
+package com.foxminded.booking.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Captures the SQL Hibernate sends and asks the database how it would run it, for tests that pin
+ * queries to indexes. Tests register the inspector with {@code @DataJpaTest(properties = INSPECTOR)},
+ * the same property everywhere so they share one context.
+ */
+public final class QueryPlans {
+    public static final String INSPECTOR = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "com.foxminded.booking.repository.QueryPlans$CapturingStatementInspector";
+
+    private QueryPlans() {
+    }
+
+    public static List<String> statements() {
+        return CapturingStatementInspector.statements;
+    }
+
+    public static void clear() {
+        CapturingStatementInspector.statements.clear();
+    }
+
+    /**
+     * Explains the single statement the query issued, binding 1 to every parameter.
+     */
+    public static String plan(JdbcTemplate jdbcTemplate, Runnable query) {
+        clear();
+        query.run();
+        List<String> statements = statements();
+        assertEquals(1, statements.size(), statements::toString);
+        return explain(jdbcTemplate, statements.get(0));
+    }
+
+    public static String explain(JdbcTemplate jdbcTemplate, String sql) {
+        Object[] parameters = new Object[sql.length() - sql.replace("?", "").length()];
+        Arrays.fill(parameters, 1);
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters).toLowerCase();
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
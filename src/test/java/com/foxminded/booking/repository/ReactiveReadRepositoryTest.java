@@ -0,0 +1,90 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.TourDto;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the R2DBC queries against r2dbc-h2 on a database of its own, migrated and seeded by Flyway
+ * over JDBC first.
+ */
+class ReactiveReadRepositoryTest {
+    private static final String OPTIONS = "MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static ReactiveReadRepository repository;
+
+    @BeforeAll
+    static void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:reactive;" + OPTIONS);
+        dataSource.setUser("sa");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        repository = new ReactiveReadRepository("r2dbc:h2:mem:///reactive?options=" + OPTIONS, "sa", "", 2);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void shouldFindToursInIdOrder() {
+        List<TourDto> tours = repository.findTours().collectList().block();
+        assertEquals(6, tours.size());
+        TourDto first = tours.get(0);
+        assertEquals(1l, first.getId());
+        assertEquals(3l, first.getPrice());
+        assertEquals("easy", first.getDifficulty());
+        assertEquals(LocalDate.of(2021, 4, 1), first.getStart());
+        assertEquals(LocalDate.of(2021, 4, 2), first.getFinish());
+        assertEquals(6l, tours.get(5).getId());
+    }
+
+    @Test
+    void shouldJoinTourUserAndGuide() {
+        List<BookingDto> bookings = repository.findBookings(null, null, null, null).collectList().block();
+        assertEquals(Arrays.asList(1l, 2l, 3l), ids(bookings));
+        BookingDto booking = bookings.get(0);
+        assertEquals(1l, booking.getTourDto().getId());
+        assertEquals("easy", booking.getTourDto().getDifficulty());
+        assertEquals(2l, booking.getUserDto().getId());
+        assertEquals("lewis", booking.getUserDto().getUsername());
+        assertEquals(ROLE_USER, booking.getUserDto().getRole());
+        assertEquals(1l, booking.getGuideDto().getId());
+        assertEquals("Chris", booking.getGuideDto().getName());
+    }
+
+    @Test
+    void shouldFindBookingsOfUser() {
+        assertEquals(Arrays.asList(2l), ids(repository.findBookings(3l, null, null, null).collectList().block()));
+    }
+
+    @Test
+    void shouldFindBookingsOfUserAndGuide() {
+        assertEquals(Arrays.asList(1l), ids(repository.findBookings(2l, 1l, null, null).collectList().block()));
+        assertEquals(Arrays.asList(), ids(repository.findBookings(2l, 2l, null, null).collectList().block()));
+    }
+
+    @Test
+    void shouldFindPageAfterId() {
+        assertEquals(Arrays.asList(2l), ids(repository.findBookings(null, null, 1l, 1).collectList().block()));
+        assertEquals(Arrays.asList(2l, 3l), ids(repository.findBookings(null, 1l, 1l, 10).collectList().block()));
+        assertEquals(Arrays.asList(3l), ids(repository.findBookings(4l, 1l, 2l, 1).collectList().block()));
+    }
+
+    private static List<Long> ids(List<BookingDto> bookings) {
+        return bookings.stream().map(BookingDto::getId).collect(Collectors.toList());
+    }
+}
@@ -36,7 +36,7 @@ class RoleRepositoryTest {
 
     @Test
     void shouldThrowConstraintViolationException() {
-        assertThrows(ConstraintViolationException.class, () -> repository.save(new Role()));
+        assertThrows(ConstraintViolationException.class, () -> repository.saveAndFlush(new Role()));
     }
 
     @Test
@@ -0,0 +1,62 @@
+package com.foxminded.booking.repository;
+
+import com.foxminded.booking.model.dto.TourFilterDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the tour search filters and sort orders meant to be index-served pick the tours
+ * indexes, see {@link QueryPlans} for how the plans are taken.
+ */
+@DataJpaTest(properties = QueryPlans.INSPECTOR)
+class TourQueryPlanTest {
+    @Autowired
+    private TourRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldSearchByDifficultyAndPriceWithIndex() {
+        TourFilterDto filter = new TourFilterDto();
+        filter.setDifficulty("easy");
+        filter.setMinPrice(3l);
+        String plan = plan(filter, Sort.by("price", "id"));
+        assertTrue(plan.contains("tours_difficulty_price_idx"), plan);
+    }
+
+    @Test
+    void shouldSearchByStartWithIndex() {
+        TourFilterDto filter = new TourFilterDto();
+        filter.setStartFrom(LocalDate.of(2021, 4, 1));
+        String plan = plan(filter, Sort.by("start", "id"));
+        assertTrue(plan.contains("tours_start_finish_idx"), plan);
+    }
+
+    @Test
+    void shouldSearchByFinishWithIndex() {
+        TourFilterDto filter = new TourFilterDto();
+        filter.setFinishTo(LocalDate.of(2021, 4, 2));
+        String plan = plan(filter, Sort.by("id"));
+        assertTrue(plan.contains("tours_finish_idx"), plan);
+    }
+
+    @Test
+    void shouldSortByFinishWithIndex() {
+        String plan = plan(new TourFilterDto(), Sort.by("finish", "id"));
+        assertTrue(plan.contains("tours_finish_idx"), plan);
+    }
+
+    private String plan(TourFilterDto filter, Sort sort) {
+        return QueryPlans.plan(jdbcTemplate,
+                () -> repository.findSlice(TourSpecifications.matching(filter), PageRequest.of(0, 10, sort)));
+    }
+}
@@ -1,11 +1,15 @@
 package com.foxminded.booking.repository;
 
 import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.TourFilterDto;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.test.context.jdbc.Sql;
 
@@ -16,7 +20,9 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class TourRepositoryTest {
@@ -38,7 +44,7 @@ class TourRepositoryTest {
 
     @Test
     void shouldThrowConstraintViolationException() {
-        assertThrows(ConstraintViolationException.class, () -> repository.save(new Tour()));
+        assertThrows(ConstraintViolationException.class, () -> repository.saveAndFlush(new Tour()));
     }
 
     @Test
@@ -98,4 +104,78 @@ class TourRepositoryTest {
     void shouldDeleteNonExistedInstance() {
         assertThrows(EmptyResultDataAccessException.class, () -> repository.deleteById(1000l));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindCapacitiesWithBooked() {
+        Tour tour = repository.findById(1l).get();
+        tour.setCapacity(10);
+        repository.saveAndFlush(tour);
+        List<Object[]> actual = repository.findCapacitiesWithBooked();
+        assertEquals(1, actual.size());
+        assertEquals(1l, ((Number) actual.get(0)[0]).longValue());
+        assertEquals(10, ((Number) actual.get(0)[1]).intValue());
+        assertEquals(3, ((Number) actual.get(0)[2]).intValue());
+    }
+
+    @Test
+    void shouldTakeSeatsUntilTourIsFull() {
+        Tour tour = repository.findById(2l).get();
+        tour.setCapacity(2);
+        repository.saveAndFlush(tour);
+        assertTrue(repository.takeSeat(2l));
+        assertTrue(repository.takeSeat(2l));
+        assertFalse(repository.takeSeat(2l));
+        assertEquals(2, repository.findBooked(2l));
+
+        repository.freeSeat(2l);
+        assertEquals(1, repository.findBooked(2l));
+        assertTrue(repository.takeSeat(2l));
+    }
+
+    @Test
+    void shouldAlwaysTakeSeatsOfTourWithoutCapacity() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(repository.takeSeat(3l));
+        }
+        assertEquals(5, repository.findBooked(3l));
+    }
+
+    @Test
+    void shouldIncrementCatalogVersion() {
+        long version = repository.findCatalogVersion();
+        assertEquals(1, repository.incrementCatalogVersion());
+        assertEquals(version + 1, repository.findCatalogVersion());
+    }
+
+    @Test
+    void shouldFindSliceMatchingFilter() {
+        TourFilterDto filter = new TourFilterDto();
+        filter.setMinPrice(4l);
+        filter.setStartFrom(LocalDate.of(2021, 4, 1));
+        filter.setFinishTo(LocalDate.of(2021, 4, 30));
+        Slice<Tour> first = repository.findSlice(TourSpecifications.matching(filter),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id"))));
+        assertTrue(first.hasNext());
+        assertEquals(new ArrayList<Tour>() {{
+            add(new Tour(5l, "hard", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)));
+        }}, first.getContent());
+
+        Slice<Tour> last = repository.findSlice(TourSpecifications.matching(filter), first.nextPageable());
+        assertFalse(last.hasNext());
+        assertEquals(new ArrayList<Tour>() {{
+            add(new Tour(4l, "medium", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)));
+        }}, last.getContent());
+    }
+
+    @Test
+    void shouldFindSliceByDifficulty() {
+        TourFilterDto filter = new TourFilterDto();
+        filter.setDifficulty("easy");
+        Slice<Tour> actual = repository.findSlice(TourSpecifications.matching(filter), PageRequest.of(0, 10, Sort.by("id")));
+        assertFalse(actual.hasNext());
+        assertEquals(new ArrayList<Tour>() {{
+            add(new Tour(3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)));
+            add(new Tour(3l, "easy", LocalDate.of(2021, 5, 1), LocalDate.of(2021, 5, 2)));
+        }}, actual.getContent());
+    }
+}
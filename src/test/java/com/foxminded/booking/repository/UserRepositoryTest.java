@@ -38,7 +38,7 @@ class UserRepositoryTest {
 
     @Test
     void shouldThrowConstraintViolationException() {
-        assertThrows(ConstraintViolationException.class, () -> repository.save(new User()));
+        assertThrows(ConstraintViolationException.class, () -> repository.saveAndFlush(new User()));
     }
 
     @Test
@@ -130,6 +130,12 @@ class UserRepositoryTest {
         assertEquals(Optional.empty(), repository.findById(1l));
     }
 
+    @Test
+    void shouldRecordRevokedUser() {
+        assertEquals(1, repository.insertRevokedUser(1000l));
+        assertEquals(1000l, repository.findRevokedUserIds().get(0).longValue());
+    }
+
     @Test
     @Sql("/test/sql/cleanTables.sql")
     void shouldDeleteNonExistedInstance() {
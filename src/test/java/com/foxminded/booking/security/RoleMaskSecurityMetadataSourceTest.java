@@ -0,0 +1,58 @@
+package com.foxminded.booking.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.ConfigAttribute;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import static com.foxminded.booking.security.RoleMask.ADMIN;
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
+import static com.foxminded.booking.security.RoleMask.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoleMaskSecurityMetadataSourceTest {
+    private final RoleMaskSecurityMetadataSource source = new RoleMaskSecurityMetadataSource();
+
+    @Test
+    void shouldTakeClassMaskForMethodWithoutAnnotation() throws NoSuchMethodException {
+        assertEquals(ADMIN, mask(Guarded.class.getMethod("inherited"), Guarded.class));
+    }
+
+    @Test
+    void shouldLetMethodMaskOverrideClassMask() throws NoSuchMethodException {
+        assertEquals(USER, mask(Guarded.class.getMethod("overridden"), Guarded.class));
+        assertEquals(AUTHENTICATED, mask(Guarded.class.getMethod("widened"), Guarded.class));
+    }
+
+    @Test
+    void shouldReturnNoAttributesWithoutAnnotation() throws NoSuchMethodException {
+        assertTrue(source.getAttributes(Unguarded.class.getMethod("open"), Unguarded.class).isEmpty());
+    }
+
+    private int mask(Method method, Class<?> targetClass) {
+        Collection<ConfigAttribute> attributes = source.getAttributes(method, targetClass);
+        assertEquals(1, attributes.size());
+        return ((RoleMaskAttribute) attributes.iterator().next()).getMask();
+    }
+
+    @AllowedRoles(ADMIN)
+    public static class Guarded {
+        public void inherited() {
+        }
+
+        @AllowedRoles(USER)
+        public void overridden() {
+        }
+
+        @AllowedRoles(AUTHENTICATED)
+        public void widened() {
+        }
+    }
+
+    public static class Unguarded {
+        public void open() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.foxminded.booking.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.foxminded.booking.security.RoleMask.ADMIN;
+import static com.foxminded.booking.security.RoleMask.AUTHENTICATED;
+import static com.foxminded.booking.security.RoleMask.USER;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.access.AccessDecisionVoter.ACCESS_ABSTAIN;
+import static org.springframework.security.access.AccessDecisionVoter.ACCESS_DENIED;
+import static org.springframework.security.access.AccessDecisionVoter.ACCESS_GRANTED;
+
+class RoleMaskVoterTest {
+    private final RoleMaskVoter voter = new RoleMaskVoter();
+
+    @Test
+    void shouldGrantWhenRoleIsAllowed() {
+        assertEquals(ACCESS_GRANTED, voter.vote(user(ROLE_USER), null, allowed(USER)));
+        assertEquals(ACCESS_GRANTED, voter.vote(user(ROLE_ADMIN), null, allowed(AUTHENTICATED)));
+    }
+
+    @Test
+    void shouldDenyWhenRoleIsNotAllowed() {
+        assertEquals(ACCESS_DENIED, voter.vote(user(ROLE_USER), null, allowed(ADMIN)));
+        assertEquals(ACCESS_DENIED, voter.vote(user("ROLE_GUEST"), null, allowed(AUTHENTICATED)));
+        assertEquals(ACCESS_DENIED, voter.vote(null, null, allowed(USER)));
+    }
+
+    @Test
+    void shouldAbstainWithoutRoleMaskAttribute() {
+        assertEquals(ACCESS_ABSTAIN, voter.vote(user(ROLE_ADMIN), null, Collections.emptyList()));
+        assertEquals(ACCESS_ABSTAIN, voter.vote(user(ROLE_ADMIN), null, SecurityConfig.createList("ROLE_ADMIN")));
+    }
+
+    @Test
+    void shouldSupportOnlyRoleMaskAttributes() {
+        assertTrue(voter.supports(new RoleMaskAttribute(USER)));
+        assertFalse(voter.supports(new SecurityConfig("ROLE_USER")));
+    }
+
+    private static Authentication user(String role) {
+        return new TestingAuthenticationToken("a", "a", role);
+    }
+
+    private static List<ConfigAttribute> allowed(int mask) {
+        return Arrays.asList(new SecurityConfig("ROLE_ADMIN"), new RoleMaskAttribute(mask));
+    }
+}
@@ -0,0 +1,75 @@
+package com.foxminded.booking.security.jwt;
+
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.model.User;
+import com.foxminded.booking.model.exception.JwtAuthenticationException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JwtTokenProviderTest {
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Test
+    void shouldParseGeneratedToken() {
+        String token = tokenProvider.generateToken(new User(1l, "a", "a", "a", "a", new Role(1l, "ROLE_USER")), 2);
+        Claims claims = tokenProvider.parseToken(token);
+        assertEquals("a", claims.getSubject());
+        assertEquals(1, claims.get(JwtTokenProvider.USER_ID_CLAIM, Number.class).intValue());
+        assertEquals("ROLE_USER", claims.get(JwtTokenProvider.ROLE_CLAIM, String.class));
+        assertEquals(2, claims.get(JwtTokenProvider.TOKEN_VERSION_CLAIM, Number.class).intValue());
+        assertTrue(tokenProvider.validateToken(token));
+        assertEquals("a", tokenProvider.getUsernameFromToken(token));
+    }
+
+    @Test
+    void shouldReturnCachedClaimsForVerifiedToken() {
+        String token = tokenProvider.generateToken(new User(2l, "b", "b", "b", "b", new Role(1l, "ROLE_USER")), 0);
+        Claims claims = tokenProvider.parseToken(token);
+        assertSame(claims, tokenProvider.parseToken(token));
+    }
+
+    @Test
+    void shouldNotAllowChangingCachedClaims() {
+        String token = tokenProvider.generateToken(new User(3l, "c", "c", "c", "c", new Role(1l, "ROLE_USER")), 0);
+        Claims claims = tokenProvider.parseToken(token);
+        assertThrows(UnsupportedOperationException.class, () -> claims.setSubject("d"));
+        assertThrows(UnsupportedOperationException.class, () -> claims.put(JwtTokenProvider.ROLE_CLAIM, "ROLE_ADMIN"));
+        assertEquals("c", tokenProvider.parseToken(token).getSubject());
+    }
+
+    @Test
+    void shouldKeepCachingNewTokensWhenCacheIsFull() {
+        for (long id = 10; id < 10020; id++) {
+            tokenProvider.parseToken(tokenProvider.generateToken(
+                    new User(id, "e", "e", "e", "e", new Role(1l, "ROLE_USER")), 0));
+        }
+        String token = tokenProvider.generateToken(new User(4l, "f", "f", "f", "f", new Role(1l, "ROLE_USER")), 0);
+        Claims claims = tokenProvider.parseToken(token);
+        assertSame(claims, tokenProvider.parseToken(token));
+    }
+
+    @Test
+    void shouldThrowJwtAuthenticationExceptionForForeignSignature() {
+        String token = Jwts.builder()
+                .setSubject("a")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS256, "b3RoZXI=")
+                .compact();
+        assertThrows(JwtAuthenticationException.class, () -> tokenProvider.parseToken(token));
+    }
+
+    @Test
+    void shouldThrowJwtAuthenticationExceptionForMalformedToken() {
+        assertThrows(JwtAuthenticationException.class, () -> tokenProvider.parseToken("a.b.c"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.*;
+import com.foxminded.booking.model.dto.BookingCommandDto;
+import com.foxminded.booking.model.dto.BookingResultDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class BookingBatchServiceTest {
+    @MockBean
+    private BookingService bookingService;
+
+    @MockBean
+    private TourService tourService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private GuideAssignmentService guideAssignmentService;
+
+    @MockBean
+    private TourCapacityService tourCapacityService;
+
+    @Autowired
+    private BookingBatchService service;
+
+    private final Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+    private final User user = new User(2l, "Lewis", "Scott", "lewis", "user", new Role(2l, "ROLE_USER"));
+    private final Guide guide = new Guide(1l, "Chris");
+
+    @Test
+    void shouldCreateValidBookingsAndReportFailedOnes() {
+        List<BookingCommandDto> commands = Arrays.asList(
+                new BookingCommandDto(1l, 2l),
+                new BookingCommandDto(1000l, 2l),
+                new BookingCommandDto(1l, 1000l)
+        );
+        when(tourService.findAllById(new HashSet<>(Arrays.asList(1l, 1000l)))).thenReturn(Collections.singletonList(tour));
+        when(userService.findAllById(new HashSet<>(Arrays.asList(2l, 1000l)))).thenReturn(Collections.singletonList(user));
+        when(guideAssignmentService.assign(1)).thenReturn(Collections.singletonList(guide));
+        when(tourCapacityService.tryReserve(1l)).thenReturn(true);
+        Booking saved = new Booking(10l, tour, user, guide);
+        when(bookingService.saveAll(Collections.singletonList(new Booking(tour, user, guide)))).thenReturn(Collections.singletonList(saved));
+
+        List<BookingResultDto> expected = Arrays.asList(
+                BookingResultDto.created(0, saved.toBookingDto()),
+                BookingResultDto.failed(1, HttpStatus.NOT_FOUND, "tour not found"),
+                BookingResultDto.failed(2, HttpStatus.NOT_FOUND, "user not found")
+        );
+        assertEquals(expected, service.createAll(commands));
+        verify(bookingService, times(1)).saveAll(anyList());
+        verify(tourCapacityService, times(1)).confirm(1l);
+    }
+
+    @Test
+    void shouldRejectBookingsOfFullyBookedTour() {
+        List<BookingCommandDto> commands = Collections.singletonList(new BookingCommandDto(1l, 2l));
+        when(tourService.findAllById(Collections.singleton(1l))).thenReturn(Collections.singletonList(tour));
+        when(userService.findAllById(Collections.singleton(2l))).thenReturn(Collections.singletonList(user));
+        when(tourCapacityService.tryReserve(1l)).thenReturn(false);
+
+        List<BookingResultDto> expected = Collections.singletonList(
+                BookingResultDto.failed(0, HttpStatus.CONFLICT, "tour is fully booked"));
+        assertEquals(expected, service.createAll(commands));
+        verify(guideAssignmentService, never()).assign(anyInt());
+        verify(bookingService, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldReleaseGuidesAndSeatsWhenSaveFails() {
+        List<BookingCommandDto> commands = Collections.singletonList(new BookingCommandDto(1l, 2l));
+        when(tourService.findAllById(Collections.singleton(1l))).thenReturn(Collections.singletonList(tour));
+        when(userService.findAllById(Collections.singleton(2l))).thenReturn(Collections.singletonList(user));
+        when(guideAssignmentService.assign(1)).thenReturn(Collections.singletonList(guide));
+        when(tourCapacityService.tryReserve(1l)).thenReturn(true);
+        when(bookingService.saveAll(anyList())).thenThrow(new IllegalStateException());
+
+        assertThrows(IllegalStateException.class, () -> service.createAll(commands));
+        verify(guideAssignmentService, times(1)).release(1l);
+        verify(tourCapacityService, times(1)).cancel(1l);
+    }
+
+    @Test
+    void shouldRejectBookingsOfToursFullInDatabase() {
+        Tour other = new Tour(3l, 4l, "medium", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        Guide second = new Guide(2l, "Bill");
+        List<BookingCommandDto> commands = Arrays.asList(new BookingCommandDto(1l, 2l), new BookingCommandDto(3l, 2l));
+        when(tourService.findAllById(new HashSet<>(Arrays.asList(1l, 3l)))).thenReturn(Arrays.asList(tour, other));
+        when(userService.findAllById(Collections.singleton(2l))).thenReturn(Collections.singletonList(user));
+        when(guideAssignmentService.assign(2)).thenReturn(Arrays.asList(guide, second));
+        when(tourCapacityService.tryReserve(anyLong())).thenReturn(true);
+        Booking saved = new Booking(10l, other, user, second);
+        when(bookingService.saveAll(anyList())).thenReturn(Arrays.asList(null, saved));
+
+        List<BookingResultDto> expected = Arrays.asList(
+                BookingResultDto.failed(0, HttpStatus.CONFLICT, "tour is fully booked"),
+                BookingResultDto.created(1, saved.toBookingDto())
+        );
+        assertEquals(expected, service.createAll(commands));
+        verify(tourCapacityService, times(1)).cancel(1l);
+        verify(guideAssignmentService, times(1)).release(1l);
+        verify(tourCapacityService, times(1)).confirm(3l);
+    }
+}
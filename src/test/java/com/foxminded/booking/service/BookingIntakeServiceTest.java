@@ -0,0 +1,149 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.*;
+import com.foxminded.booking.model.dto.BookingCommandDto;
+import com.foxminded.booking.model.dto.BookingResultDto;
+import com.foxminded.booking.model.dto.BookingTicketDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {"bookings.intake.async=true", "bookings.intake.writers=1"})
+class BookingIntakeServiceTest {
+    @MockBean
+    private BookingBatchService bookingBatchService;
+
+    @Autowired
+    private BookingIntakeService service;
+
+    @Test
+    void shouldWriteQueuedBooking() throws InterruptedException {
+        BookingCommandDto command = new BookingCommandDto(1l, 2l);
+        Booking booking = new Booking(
+                10l,
+                new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2)),
+                new User(2l, "Lewis", "Scott", "lewis", "user", new Role(2l, "ROLE_USER")),
+                new Guide(1l, "Chris")
+        );
+        when(bookingBatchService.createAll(anyList())).thenAnswer(invocation -> {
+            List<BookingCommandDto> commands = invocation.getArgument(0);
+            List<BookingResultDto> results = new ArrayList<>();
+            for (int i = 0; i < commands.size(); i++) {
+                results.add(BookingResultDto.created(i, booking.toBookingDto()));
+            }
+            return results;
+        });
+
+        BookingTicketDto ticket = service.submit(command);
+        assertEquals(HttpStatus.ACCEPTED, ticket.getStatus());
+
+        BookingTicketDto completed = awaitCompletion(ticket.getId(), 2l);
+        assertEquals(HttpStatus.CREATED, completed.getStatus());
+        assertEquals(booking.toBookingDto(), completed.getBookingDto());
+    }
+
+    @Test
+    void shouldFailTicketsWhenBatchFails() throws InterruptedException {
+        when(bookingBatchService.createAll(anyList())).thenThrow(new IllegalStateException("database is down"));
+
+        BookingTicketDto ticket = service.submit(new BookingCommandDto(1l, 3l));
+
+        BookingTicketDto completed = awaitCompletion(ticket.getId(), null);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, completed.getStatus());
+        assertEquals("booking could not be written", completed.getMessage());
+    }
+
+    @Test
+    void shouldKeepMessageOfHttpStatusException() throws InterruptedException {
+        when(bookingBatchService.createAll(anyList()))
+                .thenThrow(new HttpStatusException("tour is fully booked", HttpStatus.CONFLICT));
+
+        BookingTicketDto ticket = service.submit(new BookingCommandDto(1l, 3l));
+
+        BookingTicketDto completed = awaitCompletion(ticket.getId(), null);
+        assertEquals(HttpStatus.CONFLICT, completed.getStatus());
+        assertEquals("tour is fully booked", completed.getMessage());
+    }
+
+    @Test
+    void shouldHideTicketFromOtherUsers() {
+        BookingTicketDto ticket = service.submit(new BookingCommandDto(1l, 4l));
+        assertEquals(Optional.empty(), service.findTicket(ticket.getId(), 5l));
+        assertTrue(service.findTicket(ticket.getId(), 4l).isPresent());
+        assertTrue(service.findTicket(ticket.getId(), null).isPresent());
+    }
+
+    @Test
+    void shouldWriteQueuedBookingsBeforeStopping() throws InterruptedException {
+        BookingIntakeService stopped = new BookingIntakeService(bookingBatchService, true, 10, 1, 1, 600, 30);
+        when(bookingBatchService.createAll(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return Collections.singletonList(BookingResultDto.failed(0, HttpStatus.CONFLICT, "tour is fully booked"));
+        });
+        stopped.start();
+        List<BookingTicketDto> tickets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tickets.add(stopped.submit(new BookingCommandDto(1l, 2l)));
+        }
+        stopped.stop();
+
+        for (BookingTicketDto ticket : tickets) {
+            assertEquals(HttpStatus.CONFLICT, stopped.findTicket(ticket.getId(), 2l).get().getStatus());
+        }
+        HttpStatusException exception = assertThrows(HttpStatusException.class,
+                () -> stopped.submit(new BookingCommandDto(1l, 2l)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void shouldFailBookingsLeftAfterShutdownTimeout() throws InterruptedException {
+        BookingIntakeService stopped = new BookingIntakeService(bookingBatchService, true, 10, 1, 1, 600, 0);
+        CountDownLatch writing = new CountDownLatch(1);
+        when(bookingBatchService.createAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                // interrupted by the shutdown, finish this batch and let the writer exit
+                Thread.currentThread().interrupt();
+            }
+            return Collections.singletonList(BookingResultDto.failed(0, HttpStatus.CONFLICT, "tour is fully booked"));
+        });
+        stopped.start();
+        List<BookingTicketDto> tickets = new ArrayList<>();
+        tickets.add(stopped.submit(new BookingCommandDto(1l, 2l)));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        tickets.add(stopped.submit(new BookingCommandDto(1l, 2l)));
+        tickets.add(stopped.submit(new BookingCommandDto(1l, 2l)));
+        stopped.stop();
+
+        assertEquals(HttpStatus.CONFLICT, stopped.findTicket(tickets.get(0).getId(), 2l).get().getStatus());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, stopped.findTicket(tickets.get(1).getId(), 2l).get().getStatus());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, stopped.findTicket(tickets.get(2).getId(), 2l).get().getStatus());
+    }
+
+    private BookingTicketDto awaitCompletion(String id, Long userId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            BookingTicketDto ticket = service.findTicket(id, userId).orElseThrow(AssertionError::new);
+            if (ticket.getStatus() != HttpStatus.ACCEPTED)
+                return ticket;
+            Thread.sleep(50);
+        }
+        return fail("booking was not written in time");
+    }
+}
@@ -1,17 +1,31 @@
 package com.foxminded.booking.service;
 
 import com.foxminded.booking.model.Booking;
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.BookingDto;
+import com.foxminded.booking.model.dto.BookingFilterDto;
+import com.foxminded.booking.model.exception.HttpStatusException;
 import com.foxminded.booking.repository.BookingRepository;
+import com.foxminded.booking.repository.TourRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -19,6 +33,9 @@ class BookingServiceTest {
     @MockBean
     private BookingRepository repository;
 
+    @MockBean
+    private TourRepository tourRepository;
+
     @Autowired
     private BookingService service;
 
@@ -50,6 +67,20 @@ class BookingServiceTest {
         assertEquals(expected, service.findByGuideId(1l));
     }
 
+    @Test
+    void shouldFindByUserIdAndGuideId() {
+        List<Booking> expected = new ArrayList<>();
+        when(repository.findByUserIdAndGuideId(1l, 2l)).thenReturn(expected);
+        assertEquals(expected, service.findByUserIdAndGuideId(1l, 2l));
+    }
+
+    @Test
+    void shouldSearch() {
+        List<Booking> expected = new ArrayList<>();
+        when(repository.findPage(any(Specification.class), eq(0l), eq(10))).thenReturn(expected);
+        assertEquals(expected, service.search(new BookingFilterDto(), 0l, 10));
+    }
+
     @Test
     void shouldFindAll() {
         List<Booking> expected = new ArrayList<>();
@@ -57,6 +88,46 @@ class BookingServiceTest {
         assertEquals(expected, service.findAll());
     }
 
+    @Test
+    void shouldFindAfterId() {
+        List<Booking> expected = new ArrayList<>();
+        when(repository.findByIdGreaterThanOrderByIdAsc(1l, PageRequest.of(0, 10))).thenReturn(expected);
+        assertEquals(expected, service.findAfterId(1l, 10));
+    }
+
+    @Test
+    void shouldFindByGuideIdAfterId() {
+        List<Booking> expected = new ArrayList<>();
+        when(repository.findByGuideIdAndIdGreaterThanOrderByIdAsc(1l, 1l, PageRequest.of(0, 10))).thenReturn(expected);
+        assertEquals(expected, service.findByGuideIdAfterId(1l, 1l, 10));
+    }
+
+    @Test
+    void shouldFindByUserIdAfterId() {
+        List<Booking> expected = new ArrayList<>();
+        when(repository.findByUserIdAndIdGreaterThanOrderByIdAsc(1l, 1l, PageRequest.of(0, 10))).thenReturn(expected);
+        assertEquals(expected, service.findByUserIdAfterId(1l, 1l, 10));
+    }
+
+    @Test
+    void shouldFindByUserIdAndGuideIdAfterId() {
+        List<Booking> expected = new ArrayList<>();
+        when(repository.findByUserIdAndGuideIdAndIdGreaterThanOrderByIdAsc(1l, 1l, 1l, PageRequest.of(0, 10))).thenReturn(expected);
+        assertEquals(expected, service.findByUserIdAndGuideIdAfterId(1l, 1l, 1l, 10));
+    }
+
+    @Test
+    void shouldExportAll() {
+        List<Booking> expected = new ArrayList<Booking>() {{
+            add(new Booking());
+            add(new Booking());
+        }};
+        when(repository.streamAll()).thenReturn(expected.stream());
+        List<Booking> actual = new ArrayList<>();
+        service.exportAll(actual::add);
+        assertEquals(expected, actual);
+    }
+
     @Test
     void shouldPersistInstance() {
         Booking expected = new Booking();
@@ -64,10 +135,66 @@ class BookingServiceTest {
         assertEquals(expected, service.save(expected));
     }
 
+    @Test
+    void shouldPersistInstanceOfUser() {
+        Booking expected = new Booking(tour(1l), null, new Guide(1l, "Chris"));
+        when(tourRepository.takeSeat(1l)).thenReturn(true);
+        when(repository.save(expected)).thenReturn(expected);
+        BookingDto actual = service.saveDto(expected, 2l);
+        assertEquals(2l, actual.getUserDto().getId());
+        assertEquals("lewis", actual.getUserDto().getUsername());
+        verify(tourRepository, times(1)).takeSeat(1l);
+    }
+
+    @Test
+    void shouldRejectBookingOfFullTour() {
+        Booking booking = new Booking(tour(1l), null, null);
+        when(tourRepository.takeSeat(1l)).thenReturn(false);
+        HttpStatusException exception = assertThrows(HttpStatusException.class, () -> service.saveDto(booking, 2l));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(repository, never()).save(booking);
+    }
+
+    @Test
+    void shouldSaveOnlyBookingsOfToursWithFreeSeats() {
+        Booking first = new Booking(tour(2l), null, null);
+        Booking second = new Booking(tour(1l), null, null);
+        Booking third = new Booking(tour(2l), null, null);
+        when(tourRepository.takeSeat(1l)).thenReturn(true);
+        when(tourRepository.takeSeat(2l)).thenReturn(false);
+        when(repository.saveAll(Collections.singletonList(second))).thenReturn(Collections.singletonList(second));
+        assertEquals(Arrays.asList(null, second, null), service.saveAll(Arrays.asList(first, second, third)));
+        verify(tourRepository, times(1)).takeSeat(2l);
+    }
+
+    @Test
+    void shouldMoveSeatToNewTour() {
+        Booking booking = new Booking(1l, tour(2l), null, null);
+        when(tourRepository.takeSeat(2l)).thenReturn(true);
+        when(repository.save(booking)).thenReturn(booking);
+        assertEquals(booking, service.update(booking, 1l));
+        verify(tourRepository, times(1)).freeSeat(1l);
+        verify(tourRepository, times(1)).takeSeat(2l);
+    }
+
+    @Test
+    void shouldKeepSeatWhenTourIsUnchanged() {
+        Booking booking = new Booking(1l, tour(1l), null, null);
+        when(repository.save(booking)).thenReturn(booking);
+        assertEquals(booking, service.update(booking, 1l));
+        verifyNoInteractions(tourRepository);
+    }
+
     @Test
     void shouldDeleteById() {
+        when(repository.findById(1l)).thenReturn(Optional.of(new Booking(1l, tour(3l), null, null)));
         doNothing().when(repository).deleteById(1l);
         service.deleteById(1l);
         verify(repository, times(1)).deleteById(1l);
+        verify(tourRepository, times(1)).freeSeat(3l);
+    }
+
+    private static Tour tour(Long id) {
+        return new Tour(id, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.foxminded.booking.service;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataGeneratorTest {
+
+    @Test
+    void shouldDrawSameItemsForSameSeed() {
+        assertArrayEquals(draw(42, 1000, 1.1, 10000), draw(42, 1000, 1.1, 10000));
+    }
+
+    @Test
+    void shouldDrawOneItemPerCall() {
+        int[] counts = draw(7, 50, 1.1, 10000);
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        assertEquals(10000, total);
+    }
+
+    @Test
+    void shouldConcentrateDrawsOnFewItems() {
+        int[] counts = draw(42, 1000, 1.1, 100000);
+        int hottest = 0;
+        for (int count : counts) {
+            hottest = Math.max(hottest, count);
+        }
+        // a uniform draw would give every item about 100
+        assertTrue(hottest > 10000);
+    }
+
+    /**
+     * Generates into a database of its own, the shared test database must keep its seeded rows.
+     */
+    @Test
+    void shouldGenerateSkewedRowsAndRestartSequences() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:generator;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long users = count(jdbcTemplate, "users");
+        long guides = count(jdbcTemplate, "guides");
+        long tours = count(jdbcTemplate, "tours");
+        long bookings = count(jdbcTemplate, "bookings");
+
+        new DataGenerator(dataSource, null, null, 42, 200, 5, 50, 5000, 1.1, 0.9, 100, false).generate();
+
+        assertEquals(users + 200, count(jdbcTemplate, "users"));
+        assertEquals(guides + 5, count(jdbcTemplate, "guides"));
+        assertEquals(tours + 50, count(jdbcTemplate, "tours"));
+        assertEquals(bookings + 5000, count(jdbcTemplate, "bookings"));
+        // uniform draws would give every generated tour about 100 bookings and every user about 25
+        assertTrue(max(jdbcTemplate, "tour_id") > 500);
+        assertTrue(max(jdbcTemplate, "user_id") > 125);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from tours where booked <> " +
+                "(select count(*) from bookings where bookings.tour_id = tours.id)", Long.class));
+        for (String table : new String[]{"users", "guides", "tours", "bookings"}) {
+            long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+            assertTrue(jdbcTemplate.queryForObject("select nextval('" + table + "_seq')", Long.class) > maxId, table);
+        }
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+
+    private static long max(JdbcTemplate jdbcTemplate, String column) {
+        return jdbcTemplate.queryForObject("select max(bookings) from (select count(*) bookings from bookings " +
+                "group by " + column + ")", Long.class);
+    }
+
+    private static int[] draw(long seed, int size, double skew, int draws) {
+        DataGenerator.SkewedSampler sampler = new DataGenerator.SkewedSampler(size, skew, new SplittableRandom(seed));
+        int[] counts = new int[size];
+        for (int i = 0; i < draws; i++) {
+            counts[sampler.next()]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,71 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.model.exception.NotFoundException;
+import com.foxminded.booking.repository.GuideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class GuideAssignmentServiceTest {
+    @MockBean
+    private GuideRepository repository;
+
+    @Autowired
+    private GuideAssignmentService service;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> loads = new ArrayList<Object[]>() {{
+            add(new Object[]{1l, "Chris", 3l});
+            add(new Object[]{2l, "Bill", 1l});
+            add(new Object[]{3l, "Kale", 1l});
+        }};
+        when(repository.findAllWithBookingsCount()).thenReturn(loads);
+        service.reload();
+    }
+
+    @Test
+    void shouldAssignLeastLoadedGuide() {
+        assertEquals(new Guide(2l, "Bill"), service.assign());
+        assertEquals(new Guide(3l, "Kale"), service.assign());
+        assertEquals(new Guide(2l, "Bill"), service.assign());
+    }
+
+    @Test
+    void shouldAssignReleasedGuide() {
+        service.release(1l);
+        service.release(1l);
+        service.release(1l);
+        assertEquals(new Guide(1l, "Chris"), service.assign());
+    }
+
+    @Test
+    void shouldAssignRegisteredGuide() {
+        service.register(new Guide(4l, "Nick"));
+        assertEquals(new Guide(4l, "Nick"), service.assign());
+    }
+
+    @Test
+    void shouldNotAssignUnregisteredGuide() {
+        service.unregister(2l);
+        assertEquals(new Guide(3l, "Kale"), service.assign());
+    }
+
+    @Test
+    void shouldThrowGuideNotFoundExceptionWithoutGuides() {
+        when(repository.findAllWithBookingsCount()).thenReturn(new ArrayList<>());
+        service.reload();
+        assertThrows(NotFoundException.class, () -> service.assign());
+    }
+}
@@ -0,0 +1,65 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class RoleRegistryTest {
+    @MockBean
+    private RoleRepository repository;
+
+    @Autowired
+    private RoleRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAll()).thenReturn(Arrays.asList(new Role(1l, "ROLE_USER"), new Role(2l, "ROLE_ADMIN")));
+        registry.reload();
+    }
+
+    @Test
+    void shouldFindByName() {
+        assertEquals(new Role(2l, "ROLE_ADMIN"), registry.findByName("ROLE_ADMIN").get());
+        assertFalse(registry.findByName("ROLE_GUEST").isPresent());
+    }
+
+    @Test
+    void shouldShareAuthoritiesOfKnownRole() {
+        List<GrantedAuthority> authorities = registry.authorities("ROLE_USER");
+        assertSame(authorities, registry.authorities("ROLE_USER"));
+        assertEquals("ROLE_USER", authorities.get(0).getAuthority());
+    }
+
+    @Test
+    void shouldBuildAuthoritiesOfUnknownRole() {
+        assertEquals("ROLE_GUEST", registry.authorities("ROLE_GUEST").get(0).getAuthority());
+    }
+
+    @Test
+    void shouldApplyWrites() {
+        registry.put(new Role(1l, "ROLE_MEMBER"));
+        assertFalse(registry.findByName("ROLE_USER").isPresent());
+        assertEquals(new Role(1l, "ROLE_MEMBER"), registry.findByName("ROLE_MEMBER").get());
+        registry.remove(1l);
+        assertFalse(registry.findByName("ROLE_MEMBER").isPresent());
+    }
+
+    @Test
+    void shouldSkipRoleWithoutName() {
+        registry.put(new Role(2l, null));
+        assertFalse(registry.findByName("ROLE_ADMIN").isPresent());
+        assertTrue(registry.authorities(null).isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Guide;
+import com.foxminded.booking.model.Role;
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.repository.TourRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache"
+})
+class SecondLevelCacheTest {
+    @Autowired
+    private GuideService guideService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private TourService tourService;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        reset();
+    }
+
+    @Test
+    void shouldServeRepeatedLoadsFromCache() {
+        Guide guide = guideService.save(new Guide("Cached"));
+        reset();
+        try {
+            guideService.findById(guide.getId());
+            guideService.findById(guide.getId());
+            assertEquals(1, sessionFactory.getStatistics().getDomainDataRegionStatistics(Guide.CACHE_REGION).getHitCount());
+        } finally {
+            guideService.deleteById(guide.getId());
+        }
+    }
+
+    @Test
+    void shouldReplaceCachedEntityOnWrite() {
+        Guide guide = guideService.save(new Guide("Before"));
+        try {
+            guideService.findById(guide.getId());
+            guide.setName("After");
+            guideService.save(guide);
+            assertEquals("After", guideService.findById(guide.getId()).get().getName());
+        } finally {
+            guideService.deleteById(guide.getId());
+        }
+        assertFalse(guideService.findById(guide.getId()).isPresent());
+    }
+
+    @Test
+    void shouldInvalidateCachedQueryOnWrite() {
+        Role role = roleService.save(new Role("ROLE_CACHED"));
+        reset();
+        try {
+            roleService.findByName("ROLE_CACHED");
+            roleService.findByName("ROLE_CACHED");
+            assertEquals(1, sessionFactory.getStatistics().getQueryCacheHitCount());
+            role.setName("ROLE_RENAMED");
+            roleService.save(role);
+            assertFalse(roleService.findByName("ROLE_CACHED").isPresent());
+        } finally {
+            roleService.deleteById(role.getId());
+        }
+    }
+
+    @Test
+    void shouldKeepCachedToursWhenSeatIsTaken() {
+        tourService.findById(1l);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            tourRepository.takeSeat(1l);
+            tourRepository.freeSeat(1l);
+            return null;
+        });
+        assertTrue(sessionFactory.getCache().containsEntity(Tour.class, 1l));
+    }
+
+    private void reset() {
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+    }
+}
@@ -0,0 +1,127 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class TokenVersionServiceTest {
+    @MockBean
+    private UserRepository repository;
+
+    @Autowired
+    private TokenVersionService service;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> versions = new ArrayList<Object[]>() {{
+            add(new Object[]{2, 3});
+            add(new Object[]{4, 3});
+        }};
+        when(repository.findTokenVersions()).thenReturn(versions);
+        when(repository.findRevokedUserIds()).thenReturn(Collections.singletonList(5));
+        service.reload();
+    }
+
+    @Test
+    void shouldLoadCurrentVersions() {
+        assertEquals(3, service.currentVersion(2l));
+        assertEquals(0, service.currentVersion(1l));
+    }
+
+    @Test
+    void shouldRevokeTokensOfUser() {
+        when(repository.findTokenVersion(1l)).thenReturn(Optional.of(1));
+        service.revoke(1l);
+        verify(repository, times(1)).incrementTokenVersion(1l);
+        assertFalse(service.isCurrent(1l, 0));
+        assertTrue(service.isCurrent(1l, 1));
+    }
+
+    @Test
+    void shouldKeepTokensOfDeletedUserRevoked() {
+        assertFalse(service.isCurrent(5l, 0));
+    }
+
+    @Test
+    void shouldRevokeTokensOfDeletedUser() {
+        when(repository.findTokenVersion(4l)).thenReturn(Optional.of(4));
+        service.revokeDeleted(4l);
+        verify(repository, times(1)).insertRevokedUser(4l);
+        assertFalse(service.isCurrent(4l, 3));
+        service.revoke(4l);
+        assertFalse(service.isCurrent(4l, 4));
+    }
+
+    @Test
+    void shouldKeepTokensWhenRevocationRollsBack() {
+        when(repository.findTokenVersion(3l)).thenReturn(Optional.of(1));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.revoke(3l);
+            service.revokeDeleted(3l);
+            status.setRollbackOnly();
+        });
+        assertTrue(service.isCurrent(3l, 0));
+    }
+
+    @Test
+    void shouldRevokeTokensOfRoleUsers() {
+        List<Object[]> versions = new ArrayList<Object[]>() {{
+            add(new Object[]{6, 1});
+            add(new Object[]{7, 2});
+        }};
+        when(repository.findTokenVersionsByRoleId(1l)).thenReturn(versions);
+        service.revokeRole(1l);
+        verify(repository, times(1)).incrementRoleTokenVersions(1l);
+        assertFalse(service.isCurrent(6l, 0));
+        assertTrue(service.isCurrent(7l, 2));
+    }
+
+    @Test
+    void shouldPickUpRevocationsOfOtherInstancesOnReload() {
+        List<Object[]> versions = new ArrayList<Object[]>() {{
+            add(new Object[]{2, 3});
+            add(new Object[]{8, 1});
+        }};
+        when(repository.findTokenVersions()).thenReturn(versions);
+        when(repository.findRevokedUserIds()).thenReturn(Arrays.asList(5, 9));
+        service.reload();
+        assertFalse(service.isCurrent(8l, 0));
+        assertFalse(service.isCurrent(9l, 0));
+    }
+
+    @Test
+    void shouldAcceptNewerVersionFoundInDatabase() {
+        when(repository.findTokenVersion(10l)).thenReturn(Optional.of(2));
+        assertTrue(service.isCurrent(10l, 2));
+        assertEquals(2, service.currentVersion(10l));
+        assertFalse(service.isCurrent(10l, 1));
+    }
+
+    @Test
+    void shouldRejectNewerVersionUnknownToDatabase() {
+        when(repository.findTokenVersion(11l)).thenReturn(Optional.of(1));
+        assertFalse(service.isCurrent(11l, 2));
+        when(repository.findTokenVersion(12l)).thenReturn(Optional.empty());
+        assertFalse(service.isCurrent(12l, 1));
+    }
+}
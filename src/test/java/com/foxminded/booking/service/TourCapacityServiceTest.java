@@ -0,0 +1,120 @@
+package com.foxminded.booking.service;
+
+import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.exception.HttpStatusException;
+import com.foxminded.booking.repository.TourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class TourCapacityServiceTest {
+    @MockBean
+    private TourRepository repository;
+
+    @Autowired
+    private TourCapacityService service;
+
+    @BeforeEach
+    void setUp() {
+        service.unregister(1l);
+        service.unregister(2l);
+        List<Object[]> capacities = new ArrayList<Object[]>() {{
+            add(new Object[]{1l, 3, 2l});
+        }};
+        when(repository.findCapacitiesWithBooked()).thenReturn(capacities);
+        service.reload();
+    }
+
+    @Test
+    void shouldReserveUntilTourIsFull() {
+        assertTrue(service.tryReserve(1l));
+        assertFalse(service.tryReserve(1l));
+    }
+
+    @Test
+    void shouldAlwaysReserveToursWithoutCapacity() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.tryReserve(2l));
+        }
+    }
+
+    @Test
+    void shouldThrowConflictWhenTourIsFull() {
+        service.reserve(1l);
+        HttpStatusException exception = assertThrows(HttpStatusException.class, () -> service.reserve(1l));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    }
+
+    @Test
+    void shouldFreeSeatOfCancelledReservation() {
+        assertTrue(service.tryReserve(1l));
+        service.cancel(1l);
+        assertTrue(service.tryReserve(1l));
+    }
+
+    @Test
+    void shouldFreeSeatOfDeletedBooking() {
+        assertTrue(service.tryReserve(1l));
+        service.confirm(1l);
+        service.release(1l);
+        assertTrue(service.tryReserve(1l));
+    }
+
+    @Test
+    void shouldCountPendingReservationsWhenReconciling() {
+        assertTrue(service.tryReserve(1l));
+        service.reload();
+        assertFalse(service.tryReserve(1l));
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileReconciling() {
+        Tour tour = new Tour(2l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        tour.setCapacity(1);
+        when(repository.findBooked(2l)).thenReturn(0);
+        List<Object[]> capacities = new ArrayList<Object[]>() {{
+            add(new Object[]{1l, 3, 2l});
+        }};
+        when(repository.findCapacitiesWithBooked()).thenAnswer(invocation -> {
+            assertTrue(service.tryReserve(1l));
+            service.register(tour);
+            return capacities;
+        });
+        service.reload();
+        assertFalse(service.tryReserve(1l));
+        assertTrue(service.tryReserve(2l));
+        assertFalse(service.tryReserve(2l));
+    }
+
+    @Test
+    void shouldRegisterTourCapacity() {
+        Tour tour = new Tour(2l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        tour.setCapacity(1);
+        when(repository.findBooked(2l)).thenReturn(0);
+        service.register(tour);
+        assertTrue(service.tryReserve(2l));
+        assertFalse(service.tryReserve(2l));
+
+        tour.setCapacity(null);
+        service.register(tour);
+        assertTrue(service.tryReserve(2l));
+    }
+
+    @Test
+    void shouldUnregisterTour() {
+        service.unregister(1l);
+        assertTrue(service.tryReserve(1l));
+        assertTrue(service.tryReserve(1l));
+    }
+}
@@ -1,17 +1,29 @@
 package com.foxminded.booking.service;
 
 import com.foxminded.booking.model.Tour;
+import com.foxminded.booking.model.dto.TourDto;
+import com.foxminded.booking.model.dto.TourFilterDto;
 import com.foxminded.booking.repository.TourRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -22,6 +34,9 @@ class TourServiceTest {
     @Autowired
     private TourService service;
 
+    @Autowired
+    private TourCatalogCache catalogCache;
+
     @Test
     void shouldFindById() {
         Optional<Tour> expected = Optional.of(new Tour());
@@ -36,6 +51,92 @@ class TourServiceTest {
         assertEquals(expected, service.findAll());
     }
 
+    @Test
+    void shouldBuildCatalogOnce() {
+        catalogCache.invalidate();
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        when(repository.findAll()).thenReturn(Collections.singletonList(tour));
+        TourCatalogCache.Catalog catalog = service.catalog();
+        assertSame(catalog, service.catalog());
+        assertEquals(tour.toTourDto(), catalog.getTour(1l));
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldRebuildCatalogAfterWrite() {
+        catalogCache.invalidate();
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        when(repository.findAll()).thenReturn(new ArrayList<>(), Collections.singletonList(tour));
+        when(repository.save(tour)).thenReturn(tour);
+        TourCatalogCache.Catalog before = service.catalog();
+        String eTag = catalogCache.eTag();
+        service.save(tour);
+        TourCatalogCache.Catalog after = service.catalog();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(tour.toTourDto(), after.getTour(1l));
+        assertNotEquals(eTag, catalogCache.eTag());
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void shouldRebuildCatalogAfterWriteOnOtherInstance() {
+        catalogCache.invalidate();
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        when(repository.findAll()).thenReturn(new ArrayList<>(), Collections.singletonList(tour));
+        when(repository.findCatalogVersion()).thenReturn(3000l);
+        service.syncCatalog();
+        TourCatalogCache.Catalog before = service.catalog();
+        service.syncCatalog();
+        assertSame(before, service.catalog());
+        when(repository.findCatalogVersion()).thenReturn(3001l);
+        service.syncCatalog();
+        TourCatalogCache.Catalog after = service.catalog();
+        assertEquals(tour.toTourDto(), after.getTour(1l));
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void shouldNotRebuildCatalogForOwnWriteOnSync() {
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        when(repository.findAll()).thenReturn(Collections.singletonList(tour));
+        when(repository.save(tour)).thenReturn(tour);
+        when(repository.findCatalogVersion()).thenReturn(2000l);
+        service.save(tour);
+        verify(repository, times(1)).incrementCatalogVersion();
+        TourCatalogCache.Catalog catalog = service.catalog();
+        service.syncCatalog();
+        assertSame(catalog, service.catalog());
+    }
+
+    @Test
+    void shouldFindDtoByIdWithoutBuildingCatalog() {
+        catalogCache.invalidate();
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        when(repository.findById(1l)).thenReturn(Optional.of(tour));
+        assertEquals(Optional.of(tour.toTourDto()), service.findDtoById(1l));
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void shouldFindDtoByIdInLoadedCatalog() {
+        catalogCache.invalidate();
+        Tour tour = new Tour(1l, 3l, "easy", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 2));
+        when(repository.findAll()).thenReturn(Collections.singletonList(tour));
+        service.catalog();
+        Optional<TourDto> found = service.findDtoById(1l);
+        assertEquals(Optional.of(tour.toTourDto()), found);
+        verify(repository, never()).findById(1l);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSearch() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        Slice<Tour> expected = new SliceImpl<>(new ArrayList<>(), pageable, false);
+        when(repository.findSlice(any(Specification.class), eq(pageable))).thenReturn(expected);
+        assertEquals(expected, service.search(new TourFilterDto(), pageable));
+    }
+
     @Test
     void shouldPersistInstance() {
         Tour expected = new Tour();
@@ -9,12 +9,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -79,4 +81,55 @@ class UserServiceTest {
                 )));
         assertEquals(expected, service.loadUserByUsername("a"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldLoadUserByUsernameFromCache() {
+        when(repository.findByUsername("cached"))
+                .thenReturn(Optional.of(new User(
+                        10l, "a", "a", "cached", "a",
+                        new Role(1l, "ROLE_USER")
+                )));
+        UserDetails expected = service.loadUserByUsername("cached");
+        assertSame(expected, service.loadUserByUsername("cached"));
+        verify(repository, times(1)).findByUsername("cached");
+    }
+
+    @Test
+    void shouldInvalidateCachedUserOnSave() {
+        User user = new User(11l, "a", "a", "edited", "a", new Role(1l, "ROLE_USER"));
+        when(repository.findByUsername("edited")).thenReturn(Optional.of(user));
+        when(repository.save(user)).thenReturn(user);
+        service.loadUserByUsername("edited");
+        service.save(user);
+        service.loadUserByUsername("edited");
+        verify(repository, times(2)).findByUsername("edited");
+    }
+
+    @Test
+    void shouldInvalidateCachedUserOnRename() {
+        when(repository.findByUsername("before"))
+                .thenReturn(Optional.of(new User(
+                        13l, "a", "a", "before", "a",
+                        new Role(1l, "ROLE_USER")
+                )));
+        User renamed = new User(13l, "a", "a", "after", "a", new Role(1l, "ROLE_USER"));
+        when(repository.save(renamed)).thenReturn(renamed);
+        service.loadUserByUsername("before");
+        service.save(renamed);
+        service.loadUserByUsername("before");
+        verify(repository, times(2)).findByUsername("before");
+    }
+
+    @Test
+    void shouldInvalidateCachedUserOnDelete() {
+        when(repository.findByUsername("deleted"))
+                .thenReturn(Optional.of(new User(
+                        12l, "a", "a", "deleted", "a",
+                        new Role(1l, "ROLE_USER")
+                )));
+        service.loadUserByUsername("deleted");
+        service.deleteById(12l);
+        service.loadUserByUsername("deleted");
+        verify(repository, times(2)).findByUsername("deleted");
+    }
+}
@@ -0,0 +1,53 @@
+package com.foxminded.booking.utils;
+
+import com.foxminded.booking.security.jwt.JwtUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+
+import static com.foxminded.booking.security.SecurityConstants.ROLE_ADMIN;
+import static com.foxminded.booking.security.SecurityConstants.ROLE_USER;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityUtilsTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldMatchRoleOfAuthorities() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("a", "a", ROLE_ADMIN));
+        assertTrue(SecurityUtils.userHasRole(ROLE_ADMIN));
+        assertFalse(SecurityUtils.userHasRole(ROLE_USER));
+    }
+
+    @Test
+    void shouldMatchRoleOfJwtUser() {
+        JwtUser user = new JwtUser(1l, "a", "a", "a", "a",
+                Collections.singletonList(new SimpleGrantedAuthority(ROLE_USER)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, "", user.getAuthorities()));
+        assertTrue(SecurityUtils.userHasRole(ROLE_USER));
+        assertFalse(SecurityUtils.userHasRole(ROLE_ADMIN));
+    }
+
+    @Test
+    void shouldNotMatchUnknownRole() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("a", "a", ROLE_USER));
+        assertFalse(SecurityUtils.userHasRole("ROLE_GUEST"));
+        assertFalse(SecurityUtils.userHasRole(null));
+    }
+
+    @Test
+    void shouldNotMatchWithoutAuthentication() {
+        assertFalse(SecurityUtils.userHasRole(ROLE_USER));
+    }
+}